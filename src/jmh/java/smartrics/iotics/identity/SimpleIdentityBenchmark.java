@@ -0,0 +1,63 @@
+package smartrics.iotics.identity;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java side cost of the token and identity paths of {@link SimpleIdentity}, with the library stubbed out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimpleIdentityBenchmark {
+    private static final Duration EXPIRY = Duration.ofSeconds(3600);
+
+    private SimpleIdentity idSdk;
+    private Identity agent;
+    private AuthTokenCache tokenCache;
+
+    @Setup
+    public void setUp() {
+        idSdk = new SimpleIdentity(new StubSdkApi(), "http://localhost:2020", StubSdkApi.SEED);
+        agent = new Identity("aKey1", "#app1", StubSdkApi.AGENT_DID);
+        tokenCache = new AuthTokenCache();
+    }
+
+    @Benchmark
+    public String createAgentAuthToken() {
+        return idSdk.CreateAgentAuthToken(agent, StubSdkApi.USER_DID, "aud", EXPIRY);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String createAgentAuthTokenContended() {
+        return createAgentAuthToken();
+    }
+
+    @Benchmark
+    public String cachedAgentAuthToken() {
+        return tokenCache.get("aud", EXPIRY, this::createAgentAuthToken);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String cachedAgentAuthTokenContended() {
+        return cachedAgentAuthToken();
+    }
+
+    @Benchmark
+    public Identity createTwinIdentityWithControlDelegation() {
+        return idSdk.CreateTwinIdentityWithControlDelegation(agent, "tKey1", "#tName");
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Identity createTwinIdentityWithControlDelegationContended() {
+        return createTwinIdentityWithControlDelegation();
+    }
+}
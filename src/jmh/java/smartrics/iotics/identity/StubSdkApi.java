@@ -0,0 +1,97 @@
+package smartrics.iotics.identity;
+
+import smartrics.iotics.identity.go.StringResult;
+import smartrics.iotics.identity.jna.SdkApi;
+
+/**
+ * In-memory {@link SdkApi} returning constant results, to measure the java side of the identity paths.
+ */
+public class StubSdkApi implements SdkApi {
+    // exp is in year 2100 so that cached tokens never need refreshing
+    static final String TOKEN = "eyJhbGciOiJFUzI1NiIsInR5cCI6IkpXVCJ9" +
+            ".eyJhdWQiOiJhdWQiLCJleHAiOjQxMDI0NDQ4MDAsImlhdCI6MTYwMDAwMDAwMCwiaXNzIjoiZGlkOmlvdGljczphZ2VudCNhIiwic3ViIjoiZGlkOmlvdGljczp1c2VyIn0" +
+            ".c2lnbmF0dXJl";
+    static final String AGENT_DID = "did:iotics:iotJxn2AHBkaFXKkBymbFYcVokGhLShLtUf1";
+    static final String USER_DID = "did:iotics:iotEBuXp2wHMREZmwYAyPhFzPYfWtt9Ka2R2";
+    static final String TWIN_DID = "did:iotics:iotTwnDdKj8xhGzbPPjmZt7T9pyFKEeVrm5a";
+    static final String SEED = "f25a09c9d21ad5f7535fac4c30afe1a9f2ca025a192db549044b1b0130d1e945";
+
+    @Override
+    public StringResult CreateDefaultSeed() {
+        return new StringResult(SEED, null);
+    }
+
+    @Override
+    public StringResult MnemonicBip39ToSeed(String mnemonics) {
+        return new StringResult(SEED, null);
+    }
+
+    @Override
+    public StringResult SeedBip39ToMnemonic(String seed) {
+        return new StringResult("some mnemonic words", null);
+    }
+
+    @Override
+    public StringResult RecreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return new StringResult(AGENT_DID, null);
+    }
+
+    @Override
+    public StringResult RecreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return new StringResult(TWIN_DID, null);
+    }
+
+    @Override
+    public StringResult RecreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return new StringResult(USER_DID, null);
+    }
+
+    @Override
+    public StringResult CreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return new StringResult(AGENT_DID, null);
+    }
+
+    @Override
+    public StringResult CreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return new StringResult(TWIN_DID, null);
+    }
+
+    @Override
+    public StringResult CreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return new StringResult(USER_DID, null);
+    }
+
+    @Override
+    public StringResult CreateTwinDidWithControlDelegation(String resolverAddress, String agentDid, String agentKeyName,
+                                                           String agentName, String agentSeed,
+                                                           String twinKeyName, String twinName) {
+        return new StringResult(TWIN_DID, null);
+    }
+
+    @Override
+    public String UserDelegatesAuthenticationToAgent(String resolverAddress,
+                                                     String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                                     String userDid, String userKeyName, String userName, String userSeed,
+                                                     String delegationName) {
+        return null;
+    }
+
+    @Override
+    public StringResult IsAllowedFor(String resolverAddress, String token) {
+        return new StringResult("true", null);
+    }
+
+    @Override
+    public String TwinDelegatesControlToAgent(String resolverAddress,
+                                              String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                              String twinDid, String twinKeyName, String twinName, String twinSeed,
+                                              String delegationName) {
+        return null;
+    }
+
+    @Override
+    public StringResult CreateAgentAuthToken(String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                             String userDid, String audience, long durationInSeconds) {
+        return new StringResult(TOKEN, null);
+    }
+}
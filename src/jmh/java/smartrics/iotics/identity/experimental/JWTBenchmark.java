@@ -0,0 +1,60 @@
+package smartrics.iotics.identity.experimental;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing, reading claims from and pretty printing tokens with {@link JWT}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTBenchmark {
+    private static final String TOKEN = "eyJhbGciOiJFUzI1NiIsInR5cCI6IkpXVCJ9" +
+            ".eyJhdWQiOiJhdWQiLCJleHAiOjQxMDI0NDQ4MDAsImlhdCI6MTYwMDAwMDAwMCwiaXNzIjoiZGlkOmlvdGljczphZ2VudCNhIiwic3ViIjoiZGlkOmlvdGljczp1c2VyIn0" +
+            ".c2lnbmF0dXJl";
+
+    private JWT jwt;
+
+    @Setup
+    public void setUp() {
+        jwt = new JWT(TOKEN);
+    }
+
+    @Benchmark
+    public JWT parse() {
+        return new JWT(TOKEN);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public JWT parseContended() {
+        return parse();
+    }
+
+    @Benchmark
+    public long exp() {
+        return new JWT(TOKEN).exp();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long expContended() {
+        return exp();
+    }
+
+    @Benchmark
+    public String toNiceString() {
+        return jwt.toNiceString();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String toNiceStringContended() {
+        return toNiceString();
+    }
+}
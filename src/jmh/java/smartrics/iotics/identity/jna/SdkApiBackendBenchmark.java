@@ -0,0 +1,48 @@
+package smartrics.iotics.identity.jna;
+
+import org.openjdk.jmh.annotations.*;
+import smartrics.iotics.identity.go.StringResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call overhead of the proxy and of the direct mapping backends against the stub library in src/test/c.
+ * Requires gcc to build the stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SdkApiBackendBenchmark {
+
+    @Param({"proxy", "direct"})
+    public String backend;
+
+    private SdkApi api;
+
+    @Setup
+    public void setUp() {
+        String path = StubLibrary.path();
+        if (path == null) {
+            throw new IllegalStateException("unable to build the stub library");
+        }
+        api = "direct".equals(backend)
+                ? new DirectJnaSdkApiInitialiser(path).get()
+                : new JnaSdkApiInitialiser(path).get();
+    }
+
+    @Benchmark
+    public StringResult createAgentAuthToken() {
+        return api.CreateAgentAuthToken("did:iotics:iotJxn2AHBkaFXKkBymbFYcVokGhLShLtUf1", "aKey1",
+                "#app1", "f25a09c9d21ad5f7535fac4c30afe1a9f2ca025a192db549044b1b0130d1e945",
+                "did:iotics:iotEBuXp2wHMREZmwYAyPhFzPYfWtt9Ka2R2", "aud", 10);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public StringResult createAgentAuthTokenContended() {
+        return createAgentAuthToken();
+    }
+}
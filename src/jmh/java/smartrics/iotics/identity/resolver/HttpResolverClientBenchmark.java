@@ -0,0 +1,72 @@
+package smartrics.iotics.identity.resolver;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link HttpResolverClient#discover(String)} against an in-process HTTP server serving a fixed document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpResolverClientBenchmark {
+    private static final String DID = "did:iotics:iotEBuXp2wHMREZmwYAyPhFzPYfWtt9Ka2R2";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpResolverClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        String doc = "{\"doc\":{\"id\":\"" + DID + "\",\"publicKeys\":[{\"id\":\"#user-0\"," +
+                "\"type\":\"Secp256k1VerificationKey2018\",\"publicKeyBase58\":\"" + "1".repeat(88) + "\"," +
+                "\"revoked\":false}]},\"iss\":\"" + DID + "#user-0\"}";
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] body = ("{\"token\":\"" + encoder.encodeToString("{\"alg\":\"ES256\"}".getBytes(StandardCharsets.UTF_8)) +
+                "." + encoder.encodeToString(doc.getBytes(StandardCharsets.UTF_8)) + ".c2lnbmF0dXJl\"}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/1.0/discover/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+        client = new HttpResolverClient(new URL("http://127.0.0.1:" + server.getAddress().getPort()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public ResolverClient.Result discover() throws IOException {
+        return client.discover(DID);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResolverClient.Result discoverContended() throws IOException {
+        return discover();
+    }
+}
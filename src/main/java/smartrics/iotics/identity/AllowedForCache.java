@@ -0,0 +1,199 @@
+package smartrics.iotics.identity;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import smartrics.iotics.identity.experimental.JWT;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Decorator of {@link SimpleIdentity#IsAllowedFor(String, String)} caching its verdicts, so that a token resent many
+ * times within its lifetime is checked by the native library once.
+ * Entries are keyed by the resolver address and the SHA-256 digest of the token, so raw tokens are never kept.
+ * Positive verdicts are cached until the token <code>exp</code>, capped to a maximum time to live; negative verdicts,
+ * including errors raised by the check, are cached only if a negative time to live is configured.
+ */
+public class AllowedForCache {
+
+    private final BiFunction<String, String, String> delegate;
+    private final Cache<Key, Verdict> cache;
+    private final Duration negativeTtl;
+    private final Clock clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private AllowedForCache(BiFunction<String, String, String> delegate, Cache<Key, Verdict> cache,
+                            Duration negativeTtl, Clock clock) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.negativeTtl = negativeTtl;
+        this.clock = clock;
+    }
+
+    /**
+     * Same as {@link SimpleIdentity#IsAllowedFor(String, String)}, served from the cache when possible.
+     *
+     * @param resolverAddress the resolver address
+     * @param token           the token
+     * @return the verdict of the delegate check
+     * @throws SimpleIdentityException as thrown by the delegate check, or replayed from a cached negative verdict
+     */
+    public String IsAllowedFor(String resolverAddress, String token) {
+        Key key = new Key(resolverAddress, Hashing.sha256().hashString(token, StandardCharsets.UTF_8));
+        Instant now = clock.instant();
+        Verdict cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (now.isBefore(cached.expiresAt())) {
+                hits.increment();
+                return cached.replay();
+            }
+            cache.invalidate(key);
+        }
+        misses.increment();
+        String result;
+        try {
+            result = delegate.apply(resolverAddress, token);
+        } catch (SimpleIdentityException e) {
+            if (negativeTtl != null) {
+                cache.put(key, new Verdict(null, e.getMessage(), now.plus(negativeTtl)));
+            }
+            throw e;
+        }
+        if (Boolean.parseBoolean(result)) {
+            Instant exp = expiry(token);
+            if (exp != null && now.isBefore(exp)) {
+                cache.put(key, new Verdict(result, null, exp));
+            }
+        } else if (negativeTtl != null) {
+            cache.put(key, new Verdict(result, null, now.plus(negativeTtl)));
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the cache statistics
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), cache.stats().evictionCount(), cache.size());
+    }
+
+    private static Instant expiry(String token) {
+        try {
+            Long exp = new JWT(token).exp();
+            return exp == null ? null : Instant.ofEpochSecond(exp);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hits      the number of checks served from the cache
+     * @param misses    the number of checks delegated
+     * @param evictions the number of entries evicted because beyond the size bound or the maximum time to live
+     * @param size      the current number of entries
+     */
+    public record Stats(long hits, long misses, long evictions, long size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+    }
+
+    private record Key(String resolverAddress, HashCode digest) {
+    }
+
+    private record Verdict(String result, String error, Instant expiresAt) {
+        String replay() {
+            if (error != null) {
+                throw new SimpleIdentityException(error);
+            }
+            return result;
+        }
+    }
+
+    public static final class Builder {
+        private BiFunction<String, String, String> delegate;
+        private long maximumEntries;
+        private Duration maximumTtl;
+        private Duration negativeTtl;
+        private Clock clock;
+
+        private Builder() {
+            maximumEntries = 100_000;
+            maximumTtl = Duration.ofHours(1);
+            clock = Clock.systemUTC();
+        }
+
+        public static Builder anAllowedForCache() {
+            return new Builder();
+        }
+
+        public Builder withSimpleIdentity(SimpleIdentity simpleIdentity) {
+            Objects.requireNonNull(simpleIdentity);
+            this.delegate = simpleIdentity::IsAllowedFor;
+            return this;
+        }
+
+        /**
+         * @param delegate the check to cache, taking the resolver address and the token
+         * @return this builder
+         */
+        public Builder withDelegate(BiFunction<String, String, String> delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        public Builder withMaximumEntries(long maximumEntries) {
+            this.maximumEntries = maximumEntries;
+            return this;
+        }
+
+        /**
+         * @param maximumTtl the maximum time a verdict is cached, regardless of the token expiry
+         * @return this builder
+         */
+        public Builder withMaximumTtl(Duration maximumTtl) {
+            this.maximumTtl = maximumTtl;
+            return this;
+        }
+
+        /**
+         * @param negativeTtl the time negative verdicts and errors are cached for; not cached if not set
+         * @return this builder
+         */
+        public Builder withNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+            return this;
+        }
+
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public AllowedForCache build() {
+            Objects.requireNonNull(delegate, "delegate check");
+            Cache<Key, Verdict> cache = CacheBuilder.newBuilder()
+                    .maximumSize(maximumEntries)
+                    .expireAfterWrite(maximumTtl.toNanos(), TimeUnit.NANOSECONDS)
+                    .recordStats()
+                    .build();
+            return new AllowedForCache(delegate, cache, negativeTtl, Objects.requireNonNull(clock));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package smartrics.iotics.identity;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking variant of {@link IdentityManager}: operations needing the identity library complete asynchronously.
+ */
+public interface AsyncIdentityManager {
+
+    /**
+     * @param expiry the expiry time of this token
+     * @return a future completing with a new authentication token
+     */
+    CompletableFuture<String> newAuthenticationToken(Duration expiry);
+
+    /**
+     * @param expiry   the expiry time of this token
+     * @param audience the specific audience this token is for
+     * @return a future completing with a new authentication token
+     */
+    CompletableFuture<String> newAuthenticationToken(Duration expiry, String audience);
+
+    /**
+     * @param twinKeyName         the master key name for this twin identity
+     * @param controlDelegationID the name of the delegation
+     * @return a future completing with a new twin identity with control delegation for this agent
+     */
+    CompletableFuture<Identity> newTwinIdentityWithControlDelegation(String twinKeyName, String controlDelegationID);
+
+    default CompletableFuture<Identity> newTwinIdentityWithControlDelegation(String twinKeyName) {
+        return newTwinIdentityWithControlDelegation(twinKeyName, "#c-delegation-0");
+    }
+
+    /**
+     * @param twinKeyName the key name
+     * @param twinKeyID   key ID (must start with #)
+     * @return a future completing with a new twin identity
+     */
+    CompletableFuture<Identity> newTwinIdentity(String twinKeyName, String twinKeyID);
+
+    /**
+     * @return the agent identity
+     */
+    Identity agentIdentity();
+
+    /**
+     * @return the user identity
+     */
+    Identity userIdentity();
+}
@@ -0,0 +1,100 @@
+package smartrics.iotics.identity;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Non blocking variant of {@link SimpleIdentity}.
+ * Each call is run on a dedicated executor for native calls and its outcome is returned as a future, so that callers
+ * on event loops can compose identity operations without blocking on the library and its resolver round trips.
+ */
+public class AsyncSimpleIdentity {
+    private final SimpleIdentity idSdk;
+    private final Executor executor;
+
+    /**
+     * @param idSdk    the identity library wrapper
+     * @param executor the executor running the native calls
+     */
+    public AsyncSimpleIdentity(SimpleIdentity idSdk, Executor executor) {
+        this.idSdk = Objects.requireNonNull(idSdk);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Creates an executor suitable for native calls: a fixed pool of daemon threads.
+     *
+     * @param threads the number of threads, i.e. the maximum number of concurrent native calls
+     * @return the executor
+     */
+    public static ExecutorService newNativeCallExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, new DaemonThreadFactory("iotics-identity-native"));
+    }
+
+    public CompletableFuture<Identity> CreateAgentIdentity(String keyName, String name) {
+        return CompletableFuture.supplyAsync(() -> idSdk.CreateAgentIdentity(keyName, name), executor);
+    }
+
+    public CompletableFuture<Identity> RecreateAgentIdentity(String keyName, String name) {
+        return CompletableFuture.supplyAsync(() -> idSdk.RecreateAgentIdentity(keyName, name), executor);
+    }
+
+    public CompletableFuture<Identity> CreateTwinIdentity(String keyName, String name) {
+        return CompletableFuture.supplyAsync(() -> idSdk.CreateTwinIdentity(keyName, name), executor);
+    }
+
+    public CompletableFuture<Identity> RecreateTwinIdentity(String keyName, String name) {
+        return CompletableFuture.supplyAsync(() -> idSdk.RecreateTwinIdentity(keyName, name), executor);
+    }
+
+    public CompletableFuture<Identity> CreateUserIdentity(String keyName, String name) {
+        return CompletableFuture.supplyAsync(() -> idSdk.CreateUserIdentity(keyName, name), executor);
+    }
+
+    public CompletableFuture<Identity> RecreateUserIdentity(String keyName, String name) {
+        return CompletableFuture.supplyAsync(() -> idSdk.RecreateUserIdentity(keyName, name), executor);
+    }
+
+    public CompletableFuture<Identity> CreateTwinIdentityWithControlDelegation(Identity agentIdentity, String twinKeyName, String twinName) {
+        return CompletableFuture.supplyAsync(() -> idSdk.CreateTwinIdentityWithControlDelegation(agentIdentity, twinKeyName, twinName), executor);
+    }
+
+    public CompletableFuture<String> CreateAgentAuthToken(Identity agentIdentity, String userDid, String audience, Duration duration) {
+        return CompletableFuture.supplyAsync(() -> idSdk.CreateAgentAuthToken(agentIdentity, userDid, audience, duration), executor);
+    }
+
+    public CompletableFuture<String> CreateAgentAuthToken(Identity agentIdentity, String userDid, Duration duration) {
+        return CompletableFuture.supplyAsync(() -> idSdk.CreateAgentAuthToken(agentIdentity, userDid, duration), executor);
+    }
+
+    public CompletableFuture<String> RecreateAgentAuthToken(Identity agentIdentity, String userDid, String audience, Duration duration) {
+        return CompletableFuture.supplyAsync(() -> idSdk.RecreateAgentAuthToken(agentIdentity, userDid, audience, duration), executor);
+    }
+
+    public CompletableFuture<String> RecreateAgentAuthToken(Identity agentIdentity, String userDid, Duration duration) {
+        return CompletableFuture.supplyAsync(() -> idSdk.RecreateAgentAuthToken(agentIdentity, userDid, duration), executor);
+    }
+
+    public CompletableFuture<String> IsAllowedFor(String resolverAddress, String token) {
+        return CompletableFuture.supplyAsync(() -> idSdk.IsAllowedFor(resolverAddress, token), executor);
+    }
+
+    public CompletableFuture<Void> UserDelegatesAuthenticationToAgent(Identity agentId, Identity userId, String delegationName) {
+        return CompletableFuture.runAsync(() -> idSdk.UserDelegatesAuthenticationToAgent(agentId, userId, delegationName), executor);
+    }
+
+    public CompletableFuture<Void> TwinDelegatesControlToAgent(Identity agentId, Identity twinId, String delegationName) {
+        return CompletableFuture.runAsync(() -> idSdk.TwinDelegatesControlToAgent(agentId, twinId, delegationName), executor);
+    }
+
+    /**
+     * @return the wrapped blocking identity
+     */
+    public SimpleIdentity sync() {
+        return idSdk;
+    }
+}
@@ -0,0 +1,53 @@
+package smartrics.iotics.identity;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts a blocking {@link IdentityManager} to {@link AsyncIdentityManager} by running its calls on an executor.
+ */
+public class AsyncSimpleIdentityManager implements AsyncIdentityManager {
+    private final IdentityManager delegate;
+    private final Executor executor;
+
+    /**
+     * @param delegate the blocking identity manager
+     * @param executor the executor running the native calls
+     */
+    public AsyncSimpleIdentityManager(IdentityManager delegate, Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public CompletableFuture<String> newAuthenticationToken(Duration expiry) {
+        return CompletableFuture.supplyAsync(() -> delegate.newAuthenticationToken(expiry), executor);
+    }
+
+    @Override
+    public CompletableFuture<String> newAuthenticationToken(Duration expiry, String audience) {
+        return CompletableFuture.supplyAsync(() -> delegate.newAuthenticationToken(expiry, audience), executor);
+    }
+
+    @Override
+    public CompletableFuture<Identity> newTwinIdentityWithControlDelegation(String twinKeyName, String controlDelegationID) {
+        return CompletableFuture.supplyAsync(() -> delegate.newTwinIdentityWithControlDelegation(twinKeyName, controlDelegationID), executor);
+    }
+
+    @Override
+    public CompletableFuture<Identity> newTwinIdentity(String twinKeyName, String twinKeyID) {
+        return CompletableFuture.supplyAsync(() -> delegate.newTwinIdentity(twinKeyName, twinKeyID), executor);
+    }
+
+    @Override
+    public Identity agentIdentity() {
+        return delegate.agentIdentity();
+    }
+
+    @Override
+    public Identity userIdentity() {
+        return delegate.userIdentity();
+    }
+}
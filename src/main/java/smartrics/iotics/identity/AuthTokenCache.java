@@ -0,0 +1,158 @@
+package smartrics.iotics.identity;
+
+import smartrics.iotics.identity.experimental.JWT;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of agent authentication tokens keyed by audience and requested duration.
+ * A token is handed back until the configured fraction of its lifetime, as read from its <code>iat</code> and
+ * <code>exp</code> claims, has elapsed. After that the next caller mints a new one; concurrent callers of the same
+ * key wait for and share that single refresh.
+ */
+public class AuthTokenCache {
+
+    public static final double DEFAULT_REFRESH_FRACTION = 0.8;
+
+    private final double refreshFraction;
+    private final Clock clock;
+    private final ConcurrentMap<Key, Slot> slots = new ConcurrentHashMap<>();
+
+    public AuthTokenCache() {
+        this(DEFAULT_REFRESH_FRACTION);
+    }
+
+    public AuthTokenCache(double refreshFraction) {
+        this(refreshFraction, Clock.systemUTC());
+    }
+
+    /**
+     * @param refreshFraction the fraction of a token lifetime, in (0, 1], after which the token is minted again
+     * @param clock           the clock used to assess the token freshness
+     */
+    public AuthTokenCache(double refreshFraction, Clock clock) {
+        if (!(refreshFraction > 0 && refreshFraction <= 1)) {
+            throw new IllegalArgumentException("refresh fraction must be in (0, 1]: " + refreshFraction);
+        }
+        this.refreshFraction = refreshFraction;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Returns the cached token for this audience and duration, minting a new one if missing or due for refresh.
+     *
+     * @param audience the token audience
+     * @param duration the requested token validity
+     * @param minter   the function creating a new token
+     * @return a token within the refresh fraction of its lifetime
+     */
+    public String get(String audience, Duration duration, Supplier<String> minter) {
+        Slot slot = slots.computeIfAbsent(new Key(audience, duration), k -> new Slot());
+        CachedToken current = slot.token;
+        if (isFresh(current)) {
+            return current.token();
+        }
+        synchronized (slot) {
+            current = slot.token;
+            if (isFresh(current)) {
+                return current.token();
+            }
+            CachedToken minted = parse(minter.get(), duration);
+            slot.token = minted;
+            return minted.token();
+        }
+    }
+
+    /**
+     * Mints a new token for this audience and duration and caches it, regardless of the freshness of the current one.
+     *
+     * @param audience the token audience
+     * @param duration the requested token validity
+     * @param minter   the function creating a new token
+     * @return the newly cached token
+     */
+    public CachedToken refresh(String audience, Duration duration, Supplier<String> minter) {
+        Slot slot = slots.computeIfAbsent(new Key(audience, duration), k -> new Slot());
+        synchronized (slot) {
+            CachedToken minted = parse(minter.get(), duration);
+            slot.token = minted;
+            return minted;
+        }
+    }
+
+    /**
+     * @param audience the token audience
+     * @param duration the requested token validity
+     * @return the token currently cached for this key, if any, regardless of its freshness
+     */
+    public CachedToken peek(String audience, Duration duration) {
+        Slot slot = slots.get(new Key(audience, duration));
+        return slot == null ? null : slot.token;
+    }
+
+    public void invalidate(String audience, Duration duration) {
+        slots.remove(new Key(audience, duration));
+    }
+
+    public void invalidateAll() {
+        slots.clear();
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public double refreshFraction() {
+        return refreshFraction;
+    }
+
+    private boolean isFresh(CachedToken token) {
+        return token != null && clock.instant().isBefore(token.refreshAt());
+    }
+
+    CachedToken parse(String token, Duration duration) {
+        Instant now = clock.instant();
+        Instant issuedAt = now;
+        Instant expiresAt = now.plus(duration);
+        try {
+            JWT jwt = new JWT(token);
+            Long iat = jwt.iat();
+            Long exp = jwt.exp();
+            if (iat != null) {
+                issuedAt = Instant.ofEpochSecond(iat);
+            }
+            if (exp != null) {
+                expiresAt = Instant.ofEpochSecond(exp);
+            }
+        } catch (RuntimeException e) {
+            // not a parseable JWT: assume it's valid for the requested duration from now
+        }
+        long lifetimeMillis = Math.max(0, Duration.between(issuedAt, expiresAt).toMillis());
+        Instant refreshAt = issuedAt.plusMillis((long) (lifetimeMillis * refreshFraction));
+        return new CachedToken(token, issuedAt, expiresAt, refreshAt);
+    }
+
+    /**
+     * A cached token with its lifetime boundaries.
+     *
+     * @param token     the token
+     * @param issuedAt  the token issue time
+     * @param expiresAt the token expiry time
+     * @param refreshAt the time after which the token is minted again
+     */
+    public record CachedToken(String token, Instant issuedAt, Instant expiresAt, Instant refreshAt) {
+    }
+
+    private record Key(String audience, Duration duration) {
+    }
+
+    private static final class Slot {
+        private volatile CachedToken token;
+    }
+}
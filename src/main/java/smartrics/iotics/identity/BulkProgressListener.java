@@ -0,0 +1,18 @@
+package smartrics.iotics.identity;
+
+/**
+ * Receives progress of a bulk identity creation. Invoked from the threads running the creations, once per item.
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    BulkProgressListener NONE = (completed, total, item) -> {
+    };
+
+    /**
+     * @param completed the number of items completed so far, including this one
+     * @param total     the total number of items
+     * @param item      the item just completed
+     */
+    void onProgress(int completed, int total, BulkResult.Item item);
+}
@@ -0,0 +1,63 @@
+package smartrics.iotics.identity;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of a bulk identity creation: one item per requested key name, in request order.
+ * Failures of single items don't fail the whole batch.
+ */
+public final class BulkResult {
+
+    private final List<Item> items;
+
+    BulkResult(List<Item> items) {
+        this.items = List.copyOf(items);
+    }
+
+    /**
+     * @return all items, in the same order as the requested key names
+     */
+    public List<Item> items() {
+        return items;
+    }
+
+    /**
+     * @return the items whose identity was created
+     */
+    public List<Item> successes() {
+        return items.stream().filter(Item::isSuccess).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the items whose creation failed
+     */
+    public List<Item> failures() {
+        return items.stream().filter(i -> !i.isSuccess()).collect(Collectors.toList());
+    }
+
+    public boolean hasFailures() {
+        return items.stream().anyMatch(i -> !i.isSuccess());
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" +
+                "items=" + items.size() +
+                ", failures=" + failures().size() +
+                '}';
+    }
+
+    /**
+     * The outcome for one key name.
+     *
+     * @param keyName  the requested key name
+     * @param identity the created identity, null on failure
+     * @param error    the failure cause, null on success
+     */
+    public record Item(String keyName, Identity identity, Throwable error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
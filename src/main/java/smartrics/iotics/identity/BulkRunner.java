@@ -0,0 +1,108 @@
+package smartrics.iotics.identity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs an identity creation per key name with at most a given number of creations in flight.
+ */
+final class BulkRunner {
+
+    private BulkRunner() {
+    }
+
+    /**
+     * @param keyNames    the key names
+     * @param parallelism the maximum number of concurrent creations
+     * @param executor    the executor running the creations; if null a pool of parallelism threads is used
+     * @param create      the creation of one identity
+     * @param listener    the progress listener
+     * @return the result of all creations
+     */
+    static BulkResult run(Collection<String> keyNames, int parallelism, Executor executor,
+                          Function<String, Identity> create, BulkProgressListener listener) {
+        Objects.requireNonNull(keyNames);
+        Objects.requireNonNull(create);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        BulkProgressListener progress = listener == null ? BulkProgressListener.NONE : listener;
+        ExecutorService owned = null;
+        if (executor == null) {
+            owned = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, keyNames.size())),
+                    new DaemonThreadFactory("iotics-identity-bulk"));
+            executor = owned;
+        }
+        try {
+            return run(new ArrayList<>(keyNames), parallelism, executor, create, progress);
+        } finally {
+            if (owned != null) {
+                owned.shutdown();
+            }
+        }
+    }
+
+    private static BulkResult run(List<String> keyNames, int parallelism, Executor executor,
+                                  Function<String, Identity> create, BulkProgressListener progress) {
+        int total = keyNames.size();
+        BulkResult.Item[] items = new BulkResult.Item[total];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[total];
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < total; i++) {
+            int index = i;
+            String keyName = keyNames.get(i);
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (int j = i; j < total; j++) {
+                    items[j] = new BulkResult.Item(keyNames.get(j), null, e);
+                    futures[j] = CompletableFuture.completedFuture(null);
+                }
+                break;
+            }
+            try {
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    BulkResult.Item item;
+                    try {
+                        item = new BulkResult.Item(keyName, create.apply(keyName), null);
+                    } catch (Throwable e) {
+                        // an Error is reported against its own item so the other results are kept
+                        item = new BulkResult.Item(keyName, null, e);
+                    } finally {
+                        permits.release();
+                    }
+                    items[index] = item;
+                    notify(progress, completed.incrementAndGet(), total, item);
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                items[index] = new BulkResult.Item(keyName, null, e);
+                futures[index] = CompletableFuture.completedFuture(null);
+                notify(progress, completed.incrementAndGet(), total, items[index]);
+            }
+        }
+        CompletableFuture.allOf(futures).join();
+        return new BulkResult(Arrays.asList(items));
+    }
+
+    private static void notify(BulkProgressListener progress, int completed, int total, BulkResult.Item item) {
+        try {
+            progress.onProgress(completed, total, item);
+        } catch (RuntimeException e) {
+            // a failing listener must not fail the batch
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package smartrics.iotics.identity;
+
+import smartrics.iotics.identity.resolver.DidDocument;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Idempotent variant of the delegation writes of {@link SimpleIdentity}: the DID document of the delegating identity
+ * is read first, and the delegation is written only if the document doesn't already hold it, with a proof, for the
+ * same agent and delegation name. Re-running an onboarding over existing identities then costs one resolver read per
+ * delegation instead of a document update.
+ * Documents are read via a {@link ResolverClient}, so that a caching client can be used; if the document can't be
+ * read or parsed, the delegation is written.
+ */
+public class DelegateIfAbsent {
+
+    private final SimpleIdentity idSdk;
+    private final ResolverClient resolverClient;
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder performed = new LongAdder();
+
+    private DelegateIfAbsent(SimpleIdentity idSdk, ResolverClient resolverClient) {
+        this.idSdk = idSdk;
+        this.resolverClient = resolverClient;
+    }
+
+    /**
+     * Same as {@link SimpleIdentity#UserDelegatesAuthenticationToAgent(Identity, Identity, String)}, if the user
+     * document doesn't already delegate authentication to the agent with this delegation name.
+     *
+     * @param agentId        the identity of the agent
+     * @param userId         the identity of the user
+     * @param delegationName the delegation name
+     * @return true if the delegation was written, false if skipped
+     */
+    public boolean UserDelegatesAuthenticationToAgent(Identity agentId, Identity userId, String delegationName) {
+        if (exists(userId.did(), doc -> doc.findAuthenticationDelegation(delegationName, agentId.did()))) {
+            skipped.increment();
+            return false;
+        }
+        idSdk.UserDelegatesAuthenticationToAgent(agentId, userId, delegationName);
+        performed.increment();
+        return true;
+    }
+
+    /**
+     * Same as {@link SimpleIdentity#TwinDelegatesControlToAgent(Identity, Identity, String)}, if the twin document
+     * doesn't already delegate control to the agent with this delegation name.
+     *
+     * @param agentId        the identity of the agent
+     * @param twinId         the identity of the twin
+     * @param delegationName the delegation name
+     * @return true if the delegation was written, false if skipped
+     */
+    public boolean TwinDelegatesControlToAgent(Identity agentId, Identity twinId, String delegationName) {
+        if (exists(twinId.did(), doc -> doc.findControlDelegation(delegationName, agentId.did()))) {
+            skipped.increment();
+            return false;
+        }
+        idSdk.TwinDelegatesControlToAgent(agentId, twinId, delegationName);
+        performed.increment();
+        return true;
+    }
+
+    /**
+     * @return the counts of skipped and performed writes
+     */
+    public Stats stats() {
+        return new Stats(skipped.sum(), performed.sum());
+    }
+
+    private boolean exists(String did, Function<DidDocument, Optional<DidDocument.Delegation>> finder) {
+        try {
+            ResolverClient.Result result = resolverClient.discover(did);
+            if (result == null || result.isErr()) {
+                return false;
+            }
+            DidDocument doc = DidDocument.parse(result.content());
+            return !doc.revoked() && finder.apply(doc).isPresent();
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write counts.
+     *
+     * @param skipped   the number of delegations found in the documents, hence not written
+     * @param performed the number of delegations written
+     */
+    public record Stats(long skipped, long performed) {
+    }
+
+    public static final class Builder {
+        private SimpleIdentity idSdk;
+        private ResolverClient resolverClient;
+
+        private Builder() {
+        }
+
+        public static Builder aDelegateIfAbsent() {
+            return new Builder();
+        }
+
+        public Builder withSimpleIdentity(SimpleIdentity idSdk) {
+            this.idSdk = idSdk;
+            return this;
+        }
+
+        /**
+         * @param resolverClient the client reading the documents; the simple identity one if not set
+         * @return this builder
+         */
+        public Builder withResolverClient(ResolverClient resolverClient) {
+            this.resolverClient = resolverClient;
+            return this;
+        }
+
+        public DelegateIfAbsent build() {
+            Objects.requireNonNull(idSdk, "simple identity");
+            return new DelegateIfAbsent(idSdk, resolverClient != null ? resolverClient : idSdk.resolverClient());
+        }
+    }
+}
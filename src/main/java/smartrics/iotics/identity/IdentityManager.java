@@ -1,6 +1,7 @@
 package smartrics.iotics.identity;
 
 import java.time.Duration;
+import java.util.Collection;
 
 /**
  * However agents and users identities are created, at runtime, only new tokens and new twin identities must be created.
@@ -32,6 +33,26 @@ public interface IdentityManager {
         return newTwinIdentityWithControlDelegation(twinKeyName, "#c-delegation-0");
     }
 
+    /**
+     * Creates twins concurrently, each with control delegation for this agent. Failures are reported per twin and
+     * don't stop the other creations.
+     *
+     * @param twinKeyNames        the master key names of the twin identities
+     * @param controlDelegationID the name of the delegation
+     * @param parallelism         the maximum number of twins created concurrently
+     * @param listener            notified as each twin creation completes; may be null
+     * @return the outcome for each twin, in the order of the key names
+     */
+    default BulkResult newTwinIdentitiesWithControlDelegation(Collection<String> twinKeyNames, String controlDelegationID,
+                                                              int parallelism, BulkProgressListener listener) {
+        return BulkRunner.run(twinKeyNames, parallelism, null,
+                keyName -> newTwinIdentityWithControlDelegation(keyName, controlDelegationID), listener);
+    }
+
+    default BulkResult newTwinIdentitiesWithControlDelegation(Collection<String> twinKeyNames, int parallelism) {
+        return newTwinIdentitiesWithControlDelegation(twinKeyNames, "#c-delegation-0", parallelism, null);
+    }
+
     /**
      * @param twinKeyName the key name
      * @param twinKeyID   key ID (must start with #)
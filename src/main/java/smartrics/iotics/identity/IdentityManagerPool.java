@@ -0,0 +1,328 @@
+package smartrics.iotics.identity;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import smartrics.iotics.identity.jna.SdkApi;
+import smartrics.iotics.identity.jna.SdkApiRegistry;
+import smartrics.iotics.identity.resolver.HttpResolverClient;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Pool of {@link SimpleIdentityManager}s, one per tenant, for services acting on behalf of many tenants.
+ * Managers are built on first use of their tenant: concurrent requests for a tenant being built wait for that single
+ * build rather than bootstrapping the identities again. The number of resident managers is capped, evicting the
+ * least recently used ones first, approximately; an evicted tenant is built again on its next use.
+ * All managers share one {@link SdkApi} and one {@link ResolverClient}.
+ * Statistics are kept per resident manager and folded into the pool totals when it's evicted, so that the pool holds
+ * nothing of a tenant, seeds included, past the eviction of its manager.
+ */
+public class IdentityManagerPool {
+
+    private final Cache<Tenant, Resident> managers;
+    private final Counters retired;
+    private final LongAdder failures = new LongAdder();
+    private final String resolverAddress;
+    private final SdkApi sdkApi;
+    private final ResolverClient resolverClient;
+    private final BiConsumer<Tenant, SimpleIdentityManager.Builder> customizer;
+
+    private IdentityManagerPool(Cache<Tenant, Resident> managers, Counters retired, String resolverAddress,
+                                SdkApi sdkApi, ResolverClient resolverClient,
+                                BiConsumer<Tenant, SimpleIdentityManager.Builder> customizer) {
+        this.managers = managers;
+        this.retired = retired;
+        this.resolverAddress = resolverAddress;
+        this.sdkApi = sdkApi;
+        this.resolverClient = resolverClient;
+        this.customizer = customizer;
+    }
+
+    /**
+     * @param tenant the tenant
+     * @return the manager of the tenant, built if not resident
+     * @throws SimpleIdentityException if the manager can't be built; the failure isn't cached
+     */
+    public SimpleIdentityManager get(Tenant tenant) {
+        boolean[] built = new boolean[1];
+        try {
+            Resident resident = managers.get(tenant, () -> {
+                built[0] = true;
+                return build(tenant);
+            });
+            if (!built[0]) {
+                resident.counters.hits.increment();
+            }
+            return resident.manager;
+        } catch (UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new SimpleIdentityException("unable to build identity manager for " + tenant + ": " + e.getCause());
+        }
+    }
+
+    private Resident build(Tenant tenant) {
+        long start = System.nanoTime();
+        try {
+            SimpleIdentityManager.Builder builder = SimpleIdentityManager.Builder.anIdentityManager()
+                    .withSdkApi(sdkApi)
+                    .withResolverClient(resolverClient)
+                    .withResolverAddress(resolverAddress)
+                    .withUserSeed(tenant.userSeed())
+                    .withUserKeyName(tenant.userKeyName())
+                    .withAgentSeed(tenant.agentSeed())
+                    .withAgentKeyName(tenant.agentKeyName());
+            customizer.accept(tenant, builder);
+            SimpleIdentityManager manager = builder.build();
+            Counters c = new Counters();
+            c.builds.increment();
+            c.buildNanos.add(System.nanoTime() - start);
+            return new Resident(manager, c);
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * @param tenant the tenant
+     * @return the manager of the tenant if resident, or null
+     */
+    public SimpleIdentityManager getIfPresent(Tenant tenant) {
+        Resident resident = managers.getIfPresent(tenant);
+        return resident == null ? null : resident.manager;
+    }
+
+    /**
+     * Evicts the manager of the tenant, so that it's built again on its next use.
+     *
+     * @param tenant the tenant
+     */
+    public void invalidate(Tenant tenant) {
+        managers.invalidate(tenant);
+    }
+
+    public void invalidateAll() {
+        managers.invalidateAll();
+    }
+
+    /**
+     * @return the number of resident managers
+     */
+    public long size() {
+        return managers.size();
+    }
+
+    /**
+     * @param tenant the tenant
+     * @return the statistics of the resident manager of the tenant, all zero if not resident
+     */
+    public TenantStats stats(Tenant tenant) {
+        Resident resident = managers.getIfPresent(tenant);
+        return resident == null ? new TenantStats(0, Duration.ZERO) : resident.counters.snapshot();
+    }
+
+    /**
+     * @return the statistics of every resident manager
+     */
+    public Map<Tenant, TenantStats> tenantStats() {
+        return managers.asMap().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().counters.snapshot()));
+    }
+
+    /**
+     * @return the pool statistics since the pool was built, evicted managers included; a hit racing with the eviction
+     * of its manager may be missed
+     */
+    public Stats stats() {
+        long hits = retired.hits.sum();
+        long builds = retired.builds.sum();
+        for (Resident r : managers.asMap().values()) {
+            hits += r.counters.hits.sum();
+            builds += r.counters.builds.sum();
+        }
+        return new Stats(hits, builds, failures.sum(), managers.stats().evictionCount(), managers.size());
+    }
+
+    /**
+     * Identifies a tenant by the seeds and key names of its user and agent. The seeds aren't part of the string form.
+     */
+    public record Tenant(String userSeed, String userKeyName, String agentSeed, String agentKeyName) {
+        public Tenant {
+            Objects.requireNonNull(userSeed);
+            Objects.requireNonNull(userKeyName);
+            Objects.requireNonNull(agentSeed);
+            Objects.requireNonNull(agentKeyName);
+        }
+
+        /**
+         * @param user  the user seed and key name
+         * @param agent the agent seed and key name
+         * @return the tenant
+         */
+        public static Tenant of(SimpleConfig user, SimpleConfig agent) {
+            return new Tenant(user.seed(), user.keyName(), agent.seed(), agent.keyName());
+        }
+
+        @Override
+        public String toString() {
+            return "Tenant{userKeyName='" + userKeyName + "', agentKeyName='" + agentKeyName + "'}";
+        }
+    }
+
+    /**
+     * Statistics of the resident manager of a tenant.
+     *
+     * @param hits      the number of requests served by the manager, including the requests waiting for its build by
+     *                  another thread
+     * @param buildTime the time spent building the manager
+     */
+    public record TenantStats(long hits, Duration buildTime) {
+    }
+
+    /**
+     * Pool statistics.
+     *
+     * @param hits      the number of requests served by a resident manager
+     * @param builds    the number of managers built
+     * @param failures  the number of failed builds
+     * @param evictions the number of managers evicted because beyond the size bound or idle
+     * @param size      the current number of resident managers
+     */
+    public record Stats(long hits, long builds, long failures, long evictions, long size) {
+        public double hitRate() {
+            long total = hits + builds;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+    }
+
+    private record Resident(SimpleIdentityManager manager, Counters counters) {
+    }
+
+    private static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder builds = new LongAdder();
+        final LongAdder buildNanos = new LongAdder();
+
+        TenantStats snapshot() {
+            return new TenantStats(hits.sum(), Duration.ofNanos(buildNanos.sum()));
+        }
+
+        void addTo(Counters total) {
+            total.hits.add(hits.sum());
+            total.builds.add(builds.sum());
+            total.buildNanos.add(buildNanos.sum());
+        }
+    }
+
+    public static final class Builder {
+        private String resolverAddress;
+        private SdkApi sdkApi;
+        private ResolverClient resolverClient;
+        private long maximumManagers;
+        private Duration expireAfterAccess;
+        private BiConsumer<Tenant, SimpleIdentityManager.Builder> customizer;
+
+        private Builder() {
+            maximumManagers = 1000;
+            customizer = (t, b) -> {
+            };
+        }
+
+        public static Builder anIdentityManagerPool() {
+            return new Builder();
+        }
+
+        public Builder withResolverAddress(String resolverAddress) {
+            this.resolverAddress = resolverAddress;
+            return this;
+        }
+
+        /**
+         * @param sdkApi the api shared by all managers; the api shared by the process as per
+         *               {@link SdkApiRegistry#get()} if not set
+         * @return this builder
+         */
+        public Builder withSdkApi(SdkApi sdkApi) {
+            this.sdkApi = sdkApi;
+            return this;
+        }
+
+        /**
+         * @param resolverClient the client shared by all managers; an {@link HttpResolverClient} on the resolver
+         *                       address if not set
+         * @return this builder
+         */
+        public Builder withResolverClient(ResolverClient resolverClient) {
+            this.resolverClient = resolverClient;
+            return this;
+        }
+
+        /**
+         * @param maximumManagers the maximum number of resident managers
+         * @return this builder
+         */
+        public Builder withMaximumManagers(long maximumManagers) {
+            this.maximumManagers = maximumManagers;
+            return this;
+        }
+
+        /**
+         * @param expireAfterAccess the time after which a manager not used is evicted; not evicted by idleness if not
+         *                          set
+         * @return this builder
+         */
+        public Builder withExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        /**
+         * @param customizer called with each tenant manager builder before its build, to set the options not set by
+         *                   the pool, e.g. the token cache or a snapshot file per tenant
+         * @return this builder
+         */
+        public Builder withManagerCustomizer(BiConsumer<Tenant, SimpleIdentityManager.Builder> customizer) {
+            this.customizer = customizer;
+            return this;
+        }
+
+        public IdentityManagerPool build() {
+            Objects.requireNonNull(resolverAddress, "resolver address");
+            Counters retired = new Counters();
+            CacheBuilder<Tenant, Resident> cb = CacheBuilder.newBuilder()
+                    .maximumSize(maximumManagers)
+                    .recordStats()
+                    .removalListener((RemovalListener<Tenant, Resident>) n -> n.getValue().counters.addTo(retired));
+            if (expireAfterAccess != null) {
+                cb.expireAfterAccess(expireAfterAccess.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            ResolverClient client = resolverClient;
+            if (client == null) {
+                try {
+                    client = new HttpResolverClient(URI.create(resolverAddress).toURL());
+                } catch (MalformedURLException | IllegalArgumentException e) {
+                    throw new IllegalArgumentException("resolver address not a valid URL: " + resolverAddress);
+                }
+            }
+            return new IdentityManagerPool(cb.build(), retired, resolverAddress,
+                    sdkApi != null ? sdkApi : SdkApiRegistry.get(), client, Objects.requireNonNull(customizer));
+        }
+    }
+}
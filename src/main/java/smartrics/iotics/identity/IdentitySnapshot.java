@@ -0,0 +1,177 @@
+package smartrics.iotics.identity;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import smartrics.iotics.identity.resolver.DidDocument;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Local record of the identities bootstrapped by a {@link SimpleIdentityManager}: the user and agent identities and
+ * the name of the authentication delegation between them. It lets a restarting manager skip the resolver round trips
+ * of the bootstrap. A snapshot is only valid for the configuration it was made with, identified by a fingerprint
+ * hashing the seeds, key names, key ids, delegation name and resolver address; seeds aren't stored.
+ */
+public final class IdentitySnapshot {
+
+    private final String fingerprint;
+    private final Identity userIdentity;
+    private final Identity agentIdentity;
+    private final String authDelegationID;
+    private final Instant createdAt;
+
+    public IdentitySnapshot(String fingerprint, Identity userIdentity, Identity agentIdentity,
+                            String authDelegationID, Instant createdAt) {
+        this.fingerprint = Objects.requireNonNull(fingerprint);
+        this.userIdentity = Objects.requireNonNull(userIdentity);
+        this.agentIdentity = Objects.requireNonNull(agentIdentity);
+        this.authDelegationID = Objects.requireNonNull(authDelegationID);
+        this.createdAt = Objects.requireNonNull(createdAt);
+    }
+
+    /**
+     * @return the hex encoded SHA-256 of the configuration elements, in order
+     */
+    public static String fingerprint(String resolverAddress, String userSeed, String agentSeed,
+                                     String userKeyName, String userKeyID,
+                                     String agentKeyName, String agentKeyID,
+                                     String authDelegationID) {
+        Hasher h = Hashing.sha256().newHasher();
+        for (String s : new String[]{resolverAddress, userSeed, agentSeed, userKeyName, userKeyID,
+                agentKeyName, agentKeyID, authDelegationID}) {
+            h.putString(String.valueOf(s), StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        return h.hash().toString();
+    }
+
+    /**
+     * @param file the snapshot file
+     * @return the snapshot in the file, or null if the file is missing or not a snapshot
+     */
+    public static IdentitySnapshot read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            JsonObject o = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject();
+            return new IdentitySnapshot(o.get("fingerprint").getAsString(),
+                    identity(o.getAsJsonObject("user")),
+                    identity(o.getAsJsonObject("agent")),
+                    o.get("authDelegationID").getAsString(),
+                    Instant.parse(o.get("createdAt").getAsString()));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes this snapshot to a temporary file then moves it in place, so that readers never see a partial file.
+     *
+     * @param file the snapshot file
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        JsonObject o = new JsonObject();
+        o.addProperty("fingerprint", fingerprint);
+        o.add("user", json(userIdentity));
+        o.add("agent", json(agentIdentity));
+        o.addProperty("authDelegationID", authDelegationID);
+        o.addProperty("createdAt", createdAt.toString());
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmp, o.toString(), StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Checks that the snapshot still reflects the resolver: both documents exist with the snapshot keys, and the user
+     * document still holds the snapshot authentication delegation to the agent, not revoked and with a proof.
+     *
+     * @param resolverClient the client to fetch the documents with
+     * @return true if the snapshot is current
+     * @throws IOException if the resolver can't be reached
+     */
+    public boolean isCurrent(ResolverClient resolverClient) throws IOException {
+        DidDocument agentDoc = discover(resolverClient, agentIdentity.did());
+        DidDocument userDoc = discover(resolverClient, userIdentity.did());
+        if (agentDoc == null || userDoc == null || agentDoc.revoked() || userDoc.revoked()) {
+            return false;
+        }
+        return agentDoc.findKey(agentIdentity.name()).isPresent()
+                && userDoc.findKey(userIdentity.name()).isPresent()
+                && userDoc.findAuthenticationDelegation(authDelegationID, agentIdentity.did()).isPresent();
+    }
+
+    private static DidDocument discover(ResolverClient resolverClient, String did) throws IOException {
+        ResolverClient.Result result = resolverClient.discover(did);
+        if (result == null || result.isErr()) {
+            return null;
+        }
+        try {
+            return DidDocument.parse(result.content());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Identity identity(JsonObject o) {
+        return new Identity(o.get("keyName").getAsString(), o.get("name").getAsString(), o.get("did").getAsString());
+    }
+
+    private static JsonObject json(Identity identity) {
+        JsonObject o = new JsonObject();
+        o.addProperty("keyName", identity.keyName());
+        o.addProperty("name", identity.name());
+        o.addProperty("did", identity.did());
+        return o;
+    }
+
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    public Identity userIdentity() {
+        return userIdentity;
+    }
+
+    public Identity agentIdentity() {
+        return agentIdentity;
+    }
+
+    public String authDelegationID() {
+        return authDelegationID;
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "IdentitySnapshot{" +
+                "userIdentity=" + userIdentity +
+                ", agentIdentity=" + agentIdentity +
+                ", authDelegationID='" + authDelegationID + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,294 @@
+package smartrics.iotics.identity;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.bitcoinj.core.Base58;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import smartrics.iotics.identity.resolver.DidDocument;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Verifies agent authentication tokens in the JVM, as an alternative to {@link SimpleIdentity#IsAllowedFor(String, String)}
+ * that doesn't cross into the native library.
+ * A token is allowed when:
+ * <ul>
+ *     <li>its ES256 signature verifies with the issuer key found among the public keys of the issuer DID document;
+ *     authentication-only keys aren't accepted</li>
+ *     <li>it is not expired, nor used before its <code>nbf</code> time</li>
+ *     <li>its audience matches the expected one, when configured</li>
+ *     <li>its subject is the issuer itself, or the subject DID document delegates authentication to the issuer key,
+ *     i.e. holds a non revoked delegation with a controller equal to the token <code>iss</code> and a proof</li>
+ * </ul>
+ * Documents are fetched through the given {@link ResolverClient}; wrap it in a
+ * {@link smartrics.iotics.identity.resolver.CachingResolverClient} to avoid a resolver round trip per verification.
+ * Delegation proofs are required but not verified here: they are validated by the resolver when the document is
+ * registered. Verdicts allowing a token via a delegation say so, see {@link Verdict#delegationProofUnverified()}.
+ */
+public class LocalTokenVerifier {
+
+    private static final X9ECParameters CURVE = CustomNamedCurves.getByName("secp256k1");
+    private static final ECDomainParameters DOMAIN = new ECDomainParameters(
+            CURVE.getCurve(), CURVE.getG(), CURVE.getN(), CURVE.getH());
+
+    private final ResolverClient resolverClient;
+    private final String audience;
+    private final Duration leeway;
+    private final Clock clock;
+    private final Cache<String, ECPublicKeyParameters> keys;
+
+    private LocalTokenVerifier(ResolverClient resolverClient, String audience, Duration leeway, Clock clock, long maxKeys) {
+        this.resolverClient = resolverClient;
+        this.audience = audience;
+        this.leeway = leeway;
+        this.clock = clock;
+        this.keys = CacheBuilder.newBuilder().maximumSize(maxKeys).build();
+    }
+
+    /**
+     * @param token the token
+     * @return true if the token is allowed
+     * @throws IOException if the DID documents can't be fetched
+     */
+    public boolean isAllowed(String token) throws IOException {
+        return verify(token).allowed();
+    }
+
+    /**
+     * Verifies the token.
+     *
+     * @param token the token
+     * @return the verification outcome, with the reason for rejected tokens
+     * @throws IOException if the DID documents can't be fetched
+     */
+    public Verdict verify(String token) throws IOException {
+        if (token == null) {
+            return Verdict.denied("missing token", null, null, null);
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot < 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return Verdict.denied("malformed token", null, null, null);
+        }
+        JsonObject header;
+        JsonObject claims;
+        byte[] signature;
+        try {
+            header = json(token.substring(0, firstDot));
+            claims = json(token.substring(firstDot + 1, secondDot));
+            signature = decode(token.substring(secondDot + 1));
+        } catch (RuntimeException e) {
+            return Verdict.denied("malformed token: " + e.getMessage(), null, null, null);
+        }
+        String issuer = string(claims, "iss");
+        String subject = string(claims, "sub");
+        Long exp = number(claims, "exp");
+        Instant expiresAt = exp == null ? null : Instant.ofEpochSecond(exp);
+
+        String alg = string(header, "alg");
+        if (!"ES256".equals(alg) && !"ES256K".equals(alg)) {
+            return Verdict.denied("unsupported algorithm: " + alg, issuer, subject, expiresAt);
+        }
+        if (issuer == null || issuer.indexOf('#') < 1) {
+            return Verdict.denied("invalid issuer: " + issuer, issuer, subject, expiresAt);
+        }
+        if (subject == null) {
+            return Verdict.denied("missing subject", issuer, subject, expiresAt);
+        }
+        Instant now = clock.instant();
+        if (expiresAt == null || !now.isBefore(expiresAt.plus(leeway))) {
+            return Verdict.denied("token expired", issuer, subject, expiresAt);
+        }
+        Long nbf = number(claims, "nbf");
+        if (nbf != null && now.plus(leeway).isBefore(Instant.ofEpochSecond(nbf))) {
+            return Verdict.denied("token not yet valid", issuer, subject, expiresAt);
+        }
+        if (audience != null && !audience.equals(string(claims, "aud"))) {
+            return Verdict.denied("invalid audience: " + string(claims, "aud"), issuer, subject, expiresAt);
+        }
+
+        String issuerDid = issuer.substring(0, issuer.indexOf('#'));
+        String issuerKeyName = issuer.substring(issuer.indexOf('#'));
+        DidDocument issuerDoc = discover(issuerDid);
+        if (issuerDoc == null || issuerDoc.revoked()) {
+            return Verdict.denied("issuer document not found or revoked", issuer, subject, expiresAt);
+        }
+        DidDocument.PublicKey key = issuerDoc.findPublicKey(issuerKeyName).orElse(null);
+        if (key == null) {
+            return Verdict.denied("issuer key not found: " + issuer, issuer, subject, expiresAt);
+        }
+        byte[] signed = token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII);
+        if (!verifySignature(key, signed, signature)) {
+            return Verdict.denied("invalid signature", issuer, subject, expiresAt);
+        }
+
+        if (!subject.equals(issuerDid)) {
+            DidDocument subjectDoc = discover(subject);
+            if (subjectDoc == null || subjectDoc.revoked()) {
+                return Verdict.denied("subject document not found or revoked", issuer, subject, expiresAt);
+            }
+            boolean delegated = subjectDoc.delegateAuthentication().stream()
+                    .anyMatch(d -> !d.revoked() && issuer.equals(d.controller())
+                            && d.proof() != null && !d.proof().isEmpty());
+            if (!delegated) {
+                return Verdict.denied("no authentication delegation from subject to issuer", issuer, subject, expiresAt);
+            }
+            return new Verdict(true, null, issuer, subject, expiresAt, true);
+        }
+        return new Verdict(true, null, issuer, subject, expiresAt, false);
+    }
+
+    private DidDocument discover(String did) throws IOException {
+        ResolverClient.Result result = resolverClient.discover(did);
+        if (result == null || result.isErr()) {
+            return null;
+        }
+        try {
+            return DidDocument.parse(result.content());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean verifySignature(DidDocument.PublicKey key, byte[] signed, byte[] signature) {
+        if (signature.length != 64) {
+            return false;
+        }
+        ECPublicKeyParameters publicKey;
+        try {
+            publicKey = keys.get(key.publicKeyBase58(), () -> new ECPublicKeyParameters(
+                    DOMAIN.getCurve().decodePoint(Base58.decode(key.publicKeyBase58())), DOMAIN));
+        } catch (ExecutionException | RuntimeException e) {
+            return false;
+        }
+        ECDSASigner signer = new ECDSASigner();
+        signer.init(false, publicKey);
+        BigInteger r = new BigInteger(1, Arrays.copyOfRange(signature, 0, 32));
+        BigInteger s = new BigInteger(1, Arrays.copyOfRange(signature, 32, 64));
+        return signer.verifySignature(sha256(signed), r, s);
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JsonObject json(String segment) {
+        return JsonParser.parseString(new String(decode(segment), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private static byte[] decode(String segment) {
+        String s = segment.replace('+', '-').replace('/', '_');
+        int padding = s.indexOf('=');
+        return Base64.getUrlDecoder().decode(padding < 0 ? s : s.substring(0, padding));
+    }
+
+    private static String string(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        return e == null || !e.isJsonPrimitive() ? null : e.getAsString();
+    }
+
+    private static Long number(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        return e == null || !e.isJsonPrimitive() ? null : e.getAsLong();
+    }
+
+    /**
+     * The outcome of a token verification.
+     *
+     * @param allowed   whether the token is allowed
+     * @param reason    why the token was rejected, null if allowed
+     * @param issuer    the token issuer, as <code>did#keyName</code>, if readable
+     * @param subject   the token subject DID, if readable
+     * @param expiresAt the token expiry time, if readable
+     * @param delegationProofUnverified true if allowed via a delegation whose proof was found but not verified
+     */
+    public record Verdict(boolean allowed, String reason, String issuer, String subject, Instant expiresAt,
+                          boolean delegationProofUnverified) {
+        static Verdict denied(String reason, String issuer, String subject, Instant expiresAt) {
+            return new Verdict(false, reason, issuer, subject, expiresAt, false);
+        }
+    }
+
+    public static final class Builder {
+        private ResolverClient resolverClient;
+        private String audience;
+        private Duration leeway = Duration.ZERO;
+        private Clock clock = Clock.systemUTC();
+        private long maxKeys = 1024;
+
+        private Builder() {
+        }
+
+        public static Builder aLocalTokenVerifier() {
+            return new Builder();
+        }
+
+        /**
+         * @param resolverClient the client fetching DID documents, ideally a caching one
+         */
+        public Builder withResolverClient(ResolverClient resolverClient) {
+            this.resolverClient = resolverClient;
+            return this;
+        }
+
+        /**
+         * @param audience the audience tokens must be issued for; not checked if not set
+         */
+        public Builder withAudience(String audience) {
+            this.audience = audience;
+            return this;
+        }
+
+        /**
+         * @param leeway the clock skew tolerated when checking the token time claims
+         */
+        public Builder withLeeway(Duration leeway) {
+            this.leeway = leeway;
+            return this;
+        }
+
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @param maxKeys the maximum number of decoded public keys kept in memory
+         */
+        public Builder withMaximumKeys(long maxKeys) {
+            this.maxKeys = maxKeys;
+            return this;
+        }
+
+        public LocalTokenVerifier build() {
+            Objects.requireNonNull(resolverClient, "resolver client");
+            if (leeway == null || leeway.isNegative()) {
+                throw new IllegalArgumentException("invalid leeway: " + leeway);
+            }
+            return new LocalTokenVerifier(resolverClient, audience, leeway, Objects.requireNonNull(clock), maxKeys);
+        }
+    }
+}
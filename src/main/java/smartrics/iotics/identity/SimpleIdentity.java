@@ -7,7 +7,9 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 import static smartrics.iotics.identity.Validator.getValueOrThrow;
 import static smartrics.iotics.identity.Validator.throwIfNotNull;
@@ -142,6 +144,42 @@ public class SimpleIdentity {
         return new Identity(twinKeyName, twinName, did);
     }
 
+    /**
+     * Creates new twins concurrently, each with control delegation for this agent identity.
+     * Failures are reported per twin and don't stop the other creations.
+     *
+     * @param agentIdentity the agent identity that receives the control delegations
+     * @param twinKeyNames  the key names of the twins
+     * @param twinName      the identifier of the public key in the did documents
+     * @param parallelism   the maximum number of twins created concurrently
+     * @param listener      notified as each twin creation completes; may be null
+     * @return the outcome for each twin, in the order of the key names
+     */
+    public BulkResult CreateTwinIdentitiesWithControlDelegation(Identity agentIdentity, Collection<String> twinKeyNames,
+                                                                String twinName, int parallelism,
+                                                                BulkProgressListener listener) {
+        return CreateTwinIdentitiesWithControlDelegation(agentIdentity, twinKeyNames, twinName, parallelism, null, listener);
+    }
+
+    /**
+     * As {@link #CreateTwinIdentitiesWithControlDelegation(Identity, Collection, String, int, BulkProgressListener)},
+     * running the creations on the given executor.
+     *
+     * @param agentIdentity the agent identity that receives the control delegations
+     * @param twinKeyNames  the key names of the twins
+     * @param twinName      the identifier of the public key in the did documents
+     * @param parallelism   the maximum number of twins created concurrently
+     * @param executor      the executor running the creations; if null a pool of parallelism threads is used
+     * @param listener      notified as each twin creation completes; may be null
+     * @return the outcome for each twin, in the order of the key names
+     */
+    public BulkResult CreateTwinIdentitiesWithControlDelegation(Identity agentIdentity, Collection<String> twinKeyNames,
+                                                                String twinName, int parallelism, Executor executor,
+                                                                BulkProgressListener listener) {
+        return BulkRunner.run(twinKeyNames, parallelism, executor,
+                keyName -> CreateTwinIdentityWithControlDelegation(agentIdentity, keyName, twinName), listener);
+    }
+
     /**
      * @param agentIdentity the agent needing the token
      * @param userDid       the user that the agent claims it's authorising this request
@@ -1,30 +1,159 @@
 package smartrics.iotics.identity;
 
 
-import smartrics.iotics.identity.jna.JnaSdkApiInitialiser;
+import smartrics.iotics.identity.experimental.JavaTokenEngine;
 import smartrics.iotics.identity.jna.SdkApi;
+import smartrics.iotics.identity.jna.SdkApiRegistry;
+import smartrics.iotics.identity.resolver.HttpResolverClient;
+import smartrics.iotics.identity.resolver.ResolverClient;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * High level class to manage a user and an agent identities plus wrapper methods to create token and twin
  */
 public class SimpleIdentityManager implements IdentityManager {
 
-    private final Identity agentIdentity;
-    private final Identity userIdentity;
+    private static final DaemonThreadFactory BOOTSTRAP_THREADS = new DaemonThreadFactory("iotics-identity-bootstrap");
+    private static final Executor THREAD_PER_TASK = r -> BOOTSTRAP_THREADS.newThread(r).start();
+
     private final SimpleIdentity idSdk;
+    private final AuthTokenCache tokenCache;
+    private final JavaTokenEngine tokenEngine;
+    private final Executor bootstrapExecutor;
+    private final DelegateIfAbsent delegateIfAbsent;
+    private final TwinRegistry twinRegistry;
+    private final CompletableFuture<SnapshotStatus> snapshotStatus = new CompletableFuture<>();
+    private volatile Identity agentIdentity;
+    private volatile Identity userIdentity;
+
+    private SimpleIdentityManager(Config c) {
+        this.tokenCache = c.tokenRefreshFraction() == null ? null : new AuthTokenCache(c.tokenRefreshFraction());
+        this.tokenEngine = c.tokenEngine();
+        this.bootstrapExecutor = c.bootstrapExecutor();
+        this.twinRegistry = c.twinRegistry();
+        if (twinRegistry != null
+                && !twinRegistry.fingerprint().equals(TwinRegistry.fingerprint(c.resolverAddress(), c.agentSeed()))) {
+            throw new IllegalArgumentException("twin registry not owned by this agent and resolver");
+        }
+        idSdk = new SimpleIdentity(c.sdkApi() != null ? c.sdkApi() : SdkApiRegistry.get(), c.resolverAddress(),
+                c.userSeed(), c.agentSeed());
+        delegateIfAbsent = !c.delegateIfAbsent() ? null : DelegateIfAbsent.Builder.aDelegateIfAbsent()
+                .withSimpleIdentity(idSdk)
+                .withResolverClient(c.resolverClient())
+                .build();
+    }
+
+    /**
+     * Sets up the identities, from the snapshot or via the bootstrap.
+     *
+     * @return a future completing when the identities are set
+     */
+    private CompletableFuture<SimpleIdentityManager> start(Config c) {
+        if (c.snapshotFile() == null) {
+            return bootstrap(c).whenComplete((v, e) -> complete(SnapshotStatus.NOT_CONFIGURED, e)).thenApply(v -> this);
+        }
+        String fingerprint = IdentitySnapshot.fingerprint(c.resolverAddress(), c.userSeed(), c.agentSeed(),
+                c.userKeyName(), c.userKeyID(), c.agentKeyName(), c.agentKeyID(), c.authDelegationID());
+        IdentitySnapshot snapshot = IdentitySnapshot.read(c.snapshotFile());
+        if (snapshot == null || !snapshot.fingerprint().equals(fingerprint)) {
+            return bootstrap(c)
+                    .thenRun(() -> writeSnapshot(c, fingerprint))
+                    .whenComplete((v, e) -> complete(SnapshotStatus.BOOTSTRAPPED, e))
+                    .thenApply(v -> this);
+        }
+        userIdentity = snapshot.userIdentity();
+        agentIdentity = snapshot.agentIdentity();
+        ResolverClient resolverClient = c.resolverClient() != null
+                ? c.resolverClient()
+                : newResolverClient(c.resolverAddress());
+        CompletableFuture.supplyAsync(() -> checkSnapshot(snapshot, resolverClient),
+                        r -> new DaemonThreadFactory("iotics-identity-snapshot").newThread(r).start())
+                .thenCompose(status -> status != SnapshotStatus.REBUILT
+                        ? CompletableFuture.completedFuture(status)
+                        : bootstrap(c).thenApply(v -> {
+                    if (tokenCache != null) {
+                        tokenCache.invalidateAll();
+                    }
+                    writeSnapshot(c, fingerprint);
+                    return status;
+                }))
+                .whenComplete(this::complete);
+        return CompletableFuture.completedFuture(this);
+    }
+
+    /**
+     * Creates the user and the agent identities concurrently, then the delegation between them.
+     */
+    private CompletableFuture<Void> bootstrap(Config c) {
+        CompletableFuture<Identity> user = CompletableFuture.supplyAsync(
+                () -> idSdk.CreateUserIdentity(c.userKeyName(), c.userKeyID()), bootstrapExecutor);
+        CompletableFuture<Identity> agent = CompletableFuture.supplyAsync(
+                () -> idSdk.CreateAgentIdentity(c.agentKeyName(), c.agentKeyID()), bootstrapExecutor);
+        return user.thenAcceptBothAsync(agent, (u, a) -> {
+            if (delegateIfAbsent != null) {
+                delegateIfAbsent.UserDelegatesAuthenticationToAgent(a, u, c.authDelegationID());
+            } else {
+                idSdk.UserDelegatesAuthenticationToAgent(a, u, c.authDelegationID());
+            }
+            userIdentity = u;
+            agentIdentity = a;
+        }, bootstrapExecutor);
+    }
 
-    private SimpleIdentityManager(String resolverAddress,
-                                  String userSeed, String agentSeed,
-                                  String userKeyName, String userKeyID,
-                                  String agentKeyName, String agentKeyID,
-                                  String authDelegationID) {
-        SdkApi api = new JnaSdkApiInitialiser().get();
-        idSdk = new SimpleIdentity(api, resolverAddress, userSeed, agentSeed);
-        userIdentity = idSdk.CreateUserIdentity(userKeyName, userKeyID);
-        agentIdentity = idSdk.CreateAgentIdentity(agentKeyName, agentKeyID);
-        idSdk.UserDelegatesAuthenticationToAgent(agentIdentity, userIdentity, authDelegationID);
+    /**
+     * @return VALID or UNVERIFIED, or REBUILT if the snapshot is stale and needs rebuilding
+     */
+    private static SnapshotStatus checkSnapshot(IdentitySnapshot snapshot, ResolverClient resolverClient) {
+        try {
+            return snapshot.isCurrent(resolverClient) ? SnapshotStatus.VALID : SnapshotStatus.REBUILT;
+        } catch (IOException e) {
+            return SnapshotStatus.UNVERIFIED;
+        }
+    }
+
+    private void complete(SnapshotStatus status, Throwable error) {
+        if (error != null) {
+            snapshotStatus.completeExceptionally(error);
+        } else {
+            snapshotStatus.complete(status);
+        }
+    }
+
+    private void writeSnapshot(Config c, String fingerprint) {
+        try {
+            new IdentitySnapshot(fingerprint, userIdentity, agentIdentity, c.authDelegationID(), Instant.now())
+                    .write(c.snapshotFile());
+        } catch (IOException e) {
+            // the snapshot is an optimisation: without it the next start bootstraps again
+        }
+    }
+
+    private static ResolverClient newResolverClient(String resolverAddress) {
+        try {
+            return new HttpResolverClient(URI.create(resolverAddress).toURL());
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("resolver address not a valid URL: " + resolverAddress);
+        }
+    }
+
+    /**
+     * @return the outcome of the identity snapshot handling, completing once the background check of a loaded
+     * snapshot is done
+     */
+    public CompletableFuture<SnapshotStatus> snapshotStatus() {
+        return snapshotStatus;
     }
 
     @Override
@@ -34,17 +163,62 @@ public class SimpleIdentityManager implements IdentityManager {
 
     @Override
     public String newAuthenticationToken(Duration expiry, String audience) {
+        if (tokenCache != null) {
+            return tokenCache.get(audience, expiry, () -> mintAuthenticationToken(expiry, audience));
+        }
+        return mintAuthenticationToken(expiry, audience);
+    }
+
+    String mintAuthenticationToken(Duration expiry, String audience) {
+        if (tokenEngine != null) {
+            return tokenEngine.createAgentAuthToken(this.agentIdentity.did(), this.agentIdentity.keyName(),
+                    this.agentIdentity.name(), idSdk.getAgentSeed(), this.userIdentity.did(), audience, expiry);
+        }
         return idSdk.CreateAgentAuthToken(this.agentIdentity, this.userIdentity.did(), audience, expiry);
     }
 
     @Override
     public Identity newTwinIdentityWithControlDelegation(String twinKeyName, String controlDelegationID) {
-        return idSdk.CreateTwinIdentityWithControlDelegation(this.agentIdentity, twinKeyName, controlDelegationID);
+        return registered(twinKeyName, controlDelegationID, controlDelegationID,
+                () -> idSdk.CreateTwinIdentityWithControlDelegation(this.agentIdentity, twinKeyName, controlDelegationID));
     }
 
     @Override
     public Identity newTwinIdentity(String twinKeyName, String twinKeyID) {
-        return idSdk.CreateTwinIdentity(twinKeyName, twinKeyID);
+        return registered(twinKeyName, twinKeyID, null, () -> idSdk.CreateTwinIdentity(twinKeyName, twinKeyID));
+    }
+
+    private Identity registered(String twinKeyName, String name, String controlDelegationID, Supplier<Identity> create) {
+        if (twinRegistry == null) {
+            return create.get();
+        }
+        Identity known = twinRegistry.get(twinKeyName, controlDelegationID);
+        if (known != null && known.name().equals(name)) {
+            return known;
+        }
+        Identity twin = create.get();
+        twinRegistry.put(twin, controlDelegationID);
+        return twin;
+    }
+
+    /**
+     * @param executor the executor running the native calls
+     * @return a non blocking view of this manager
+     */
+    public AsyncIdentityManager async(Executor executor) {
+        return new AsyncSimpleIdentityManager(this, executor);
+    }
+
+    /**
+     * @return the counts of the delegation writes skipped and performed by {@link Builder#withDelegateIfAbsent()};
+     * all zero if not enabled
+     */
+    public DelegateIfAbsent.Stats delegationStats() {
+        return delegateIfAbsent == null ? new DelegateIfAbsent.Stats(0, 0) : delegateIfAbsent.stats();
+    }
+
+    AuthTokenCache tokenCache() {
+        return tokenCache;
     }
 
     @Override
@@ -66,6 +240,15 @@ public class SimpleIdentityManager implements IdentityManager {
         private String agentKeyID;
         private String authDelegationID;
         private String resolverAddress;
+        private Double tokenRefreshFraction;
+        private JavaTokenEngine tokenEngine;
+        private SdkApi sdkApi;
+        private Path snapshotFile;
+        private ResolverClient resolverClient;
+        private Executor bootstrapExecutor;
+        private Duration buildTimeout;
+        private boolean delegateIfAbsent;
+        private TwinRegistry twinRegistry;
 
         private Builder() {
             authDelegationID = "#deleg-0";
@@ -117,13 +300,175 @@ public class SimpleIdentityManager implements IdentityManager {
             return this;
         }
 
+        /**
+         * Enables caching of authentication tokens: a token is reused until the given fraction of its lifetime
+         * has elapsed.
+         *
+         * @param refreshFraction the fraction of the token lifetime, in (0, 1], after which a new token is minted
+         * @return this builder
+         */
+        public Builder withTokenCache(double refreshFraction) {
+            this.tokenRefreshFraction = refreshFraction;
+            return this;
+        }
+
+        /**
+         * Mints authentication tokens in the JVM with a {@link JavaTokenEngine} rather than via the native library.
+         * Identities and delegations are still created by the native library.
+         * Experimental: the engine hasn't been checked yet against tokens minted by the native library, so the
+         * switch stays package-private until <code>JavaTokenEngineTest.matchesNativeLibrary</code> runs against a
+         * fixture of native tokens.
+         *
+         * @return this builder
+         */
+        Builder withExperimentalJavaTokenEngine() {
+            this.tokenEngine = new JavaTokenEngine();
+            return this;
+        }
+
+        /**
+         * @param sdkApi the api over the identity library; if not set, the api shared by the process as per
+         *               {@link SdkApiRegistry#get()}
+         * @return this builder
+         */
+        public Builder withSdkApi(SdkApi sdkApi) {
+            this.sdkApi = sdkApi;
+            return this;
+        }
+
+        /**
+         * Enables the identity snapshot: when the file holds a snapshot of this same configuration, its identities are
+         * used straight away, skipping the bootstrap calls, and checked against the resolver in the background;
+         * if stale, the bootstrap runs in the background and the snapshot is rewritten. When the file is missing or
+         * was made for another configuration, the bootstrap runs and the file is written.
+         *
+         * @param snapshotFile the snapshot file
+         * @return this builder
+         * @see #snapshotStatus()
+         */
+        public Builder withSnapshot(Path snapshotFile) {
+            this.snapshotFile = snapshotFile;
+            return this;
+        }
+
+        /**
+         * Writes the authentication delegation at bootstrap only if the user document doesn't hold it already.
+         *
+         * @return this builder
+         * @see DelegateIfAbsent
+         */
+        public Builder withDelegateIfAbsent() {
+            this.delegateIfAbsent = true;
+            return this;
+        }
+
+        /**
+         * Looks twins up in a registry before creating them: a twin found with the same key name, name and control
+         * delegation is returned without calling the library, otherwise it's created and registered. The registry
+         * must be opened with the agent seed and resolver address of this manager, or the build fails. The registry
+         * stays owned by the caller, who closes it.
+         *
+         * @param twinRegistry the registry
+         * @return this builder
+         * @see TwinRegistry.Builder#withOwner(String, String)
+         */
+        public Builder withTwinRegistry(TwinRegistry twinRegistry) {
+            this.twinRegistry = twinRegistry;
+            return this;
+        }
+
+        /**
+         * @param resolverClient the client used to check the identity snapshot and the existing delegation; an
+         *                       {@link HttpResolverClient} on the resolver address if not set
+         * @return this builder
+         */
+        public Builder withResolverClient(ResolverClient resolverClient) {
+            this.resolverClient = resolverClient;
+            return this;
+        }
+
+        /**
+         * @param bootstrapExecutor the executor running the bootstrap calls; the user and agent identities are
+         *                          created concurrently, so it should allow two tasks at once. If not set, each
+         *                          call runs on its own daemon thread
+         * @return this builder
+         */
+        public Builder withBootstrapExecutor(Executor bootstrapExecutor) {
+            this.bootstrapExecutor = bootstrapExecutor;
+            return this;
+        }
+
+        /**
+         * @param buildTimeout the maximum time the build waits for the bootstrap; no limit if not set. The native
+         *                     calls in progress at the timeout aren't interrupted
+         * @return this builder
+         */
+        public Builder withBuildTimeout(Duration buildTimeout) {
+            this.buildTimeout = buildTimeout;
+            return this;
+        }
+
+        /**
+         * Builds the manager, waiting for the bootstrap of its identities.
+         *
+         * @return the manager
+         * @throws SimpleIdentityException if the bootstrap fails or doesn't complete within the build timeout
+         */
         public SimpleIdentityManager build() {
-            return new SimpleIdentityManager(
-                    resolverAddress,
-                    userSeed, agentSeed,
-                    userKeyName, userKeyID,
-                    agentKeyName, agentKeyID,
-                    authDelegationID);
+            Config config = config();
+            CompletableFuture<SimpleIdentityManager> future = new SimpleIdentityManager(config).start(config);
+            try {
+                return buildTimeout == null ? future.get() : future.get(buildTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new SimpleIdentityException("identity bootstrap failed: " + e.getCause());
+            } catch (TimeoutException e) {
+                throw new SimpleIdentityException("identity bootstrap not completed within " + buildTimeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SimpleIdentityException("interrupted while waiting for the identity bootstrap");
+            }
+        }
+
+        /**
+         * Builds the manager without blocking the caller: the SDK library lookup and the identity bootstrap run on
+         * the bootstrap executor.
+         *
+         * @return a future completing with the manager once its identities are set up, or exceptionally with the
+         * bootstrap error or a {@link TimeoutException} past the build timeout
+         */
+        public CompletableFuture<SimpleIdentityManager> buildAsync() {
+            Config config = config();
+            CompletableFuture<SimpleIdentityManager> future = CompletableFuture
+                    .supplyAsync(() -> new SimpleIdentityManager(config), config.bootstrapExecutor())
+                    .thenCompose(m -> m.start(config));
+            return buildTimeout == null ? future : future.orTimeout(buildTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return a copy of the current settings, so that the builder can be changed or reused while a build started
+         * from it, or a background rebuild, is still running
+         */
+        private Config config() {
+            return new Config(userSeed, agentSeed, userKeyName, agentKeyName, userKeyID, agentKeyID, authDelegationID,
+                    resolverAddress, tokenRefreshFraction, tokenEngine, sdkApi, snapshotFile, resolverClient,
+                    bootstrapExecutor != null ? bootstrapExecutor : THREAD_PER_TASK, delegateIfAbsent, twinRegistry);
+        }
+    }
+
+    /**
+     * The settings of a build, copied from the builder when the build starts.
+     */
+    private record Config(String userSeed, String agentSeed, String userKeyName, String agentKeyName,
+                          String userKeyID, String agentKeyID, String authDelegationID, String resolverAddress,
+                          Double tokenRefreshFraction, JavaTokenEngine tokenEngine, SdkApi sdkApi, Path snapshotFile,
+                          ResolverClient resolverClient, Executor bootstrapExecutor, boolean delegateIfAbsent,
+                          TwinRegistry twinRegistry) {
+        @Override
+        public String toString() {
+            return "Config{userKeyName='" + userKeyName + "', agentKeyName='" + agentKeyName + "'}";
         }
     }
 }
@@ -0,0 +1,28 @@
+package smartrics.iotics.identity;
+
+/**
+ * Outcome of the identity snapshot handling of a {@link SimpleIdentityManager}.
+ */
+public enum SnapshotStatus {
+    /**
+     * No snapshot configured: the identities were bootstrapped.
+     */
+    NOT_CONFIGURED,
+    /**
+     * The snapshot was missing or made for another configuration: the identities were bootstrapped and the snapshot
+     * written.
+     */
+    BOOTSTRAPPED,
+    /**
+     * The snapshot was used and found current on the resolver.
+     */
+    VALID,
+    /**
+     * The snapshot was used but the resolver couldn't be reached to check it.
+     */
+    UNVERIFIED,
+    /**
+     * The snapshot was used but found stale: the identities were bootstrapped again and the snapshot rewritten.
+     */
+    REBUILT
+}
@@ -0,0 +1,230 @@
+package smartrics.iotics.identity;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Renews cached authentication tokens ahead of their refresh time so that callers of
+ * {@link IdentityManager#newAuthenticationToken(Duration, String)} find a fresh token and never block on minting.
+ * Renewals of all registrations run on one small shared scheduler and are spread with a random lead over
+ * a window before each token is due, so that tokens minted at the same time don't all get renewed at the same time.
+ */
+public class TokenRefresher implements AutoCloseable {
+
+    public static final double DEFAULT_JITTER_FRACTION = 0.1;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final double jitterFraction;
+    private final Clock clock;
+    private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder renewals = new LongAdder();
+    private final LongAdder missed = new LongAdder();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    /**
+     * @param threads the number of threads shared by all renewals
+     */
+    public TokenRefresher(int threads) {
+        this(newScheduler(threads), true, DEFAULT_JITTER_FRACTION, Clock.systemUTC());
+    }
+
+    /**
+     * @param scheduler      the scheduler running the renewals; not shut down when this refresher is closed
+     * @param jitterFraction the fraction of the token lifetime, in [0, 1), over which renewals are spread ahead of
+     *                       their refresh time
+     * @param clock          the clock used to compute the renewal times
+     */
+    public TokenRefresher(ScheduledExecutorService scheduler, double jitterFraction, Clock clock) {
+        this(scheduler, false, jitterFraction, clock);
+    }
+
+    private TokenRefresher(ScheduledExecutorService scheduler, boolean ownsScheduler, double jitterFraction, Clock clock) {
+        if (!(jitterFraction >= 0 && jitterFraction < 1)) {
+            throw new IllegalArgumentException("jitter fraction must be in [0, 1): " + jitterFraction);
+        }
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.ownsScheduler = ownsScheduler;
+        this.jitterFraction = jitterFraction;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Keeps the token for this audience and expiry fresh in the manager's token cache.
+     *
+     * @param manager  the manager, built with a token cache
+     * @param expiry   the token expiry, as passed to {@link SimpleIdentityManager#newAuthenticationToken(Duration, String)}
+     * @param audience the token audience
+     * @return the registration, to close when the renewals are no longer needed
+     */
+    public Registration register(SimpleIdentityManager manager, Duration expiry, String audience) {
+        AuthTokenCache cache = manager.tokenCache();
+        if (cache == null) {
+            throw new IllegalArgumentException("identity manager built without token cache");
+        }
+        return register(cache, audience, expiry, () -> manager.mintAuthenticationToken(expiry, audience));
+    }
+
+    /**
+     * Keeps the token for this audience and expiry fresh in the given cache.
+     *
+     * @param cache    the cache holding the token
+     * @param audience the token audience
+     * @param expiry   the token expiry
+     * @param minter   the function creating a new token
+     * @return the registration, to close when the renewals are no longer needed
+     */
+    public Registration register(AuthTokenCache cache, String audience, Duration expiry, Supplier<String> minter) {
+        Registration registration = new Registration(cache, audience, expiry, minter);
+        registrations.add(registration);
+        AuthTokenCache.CachedToken current = cache.peek(audience, expiry);
+        if (current == null) {
+            registration.schedule(Duration.ZERO);
+        } else {
+            registration.scheduleAhead(current);
+        }
+        return registration;
+    }
+
+    /**
+     * @return the renewal statistics of this refresher
+     */
+    public Stats stats() {
+        Instant now = clock.instant();
+        long behindMillis = 0;
+        for (Registration r : registrations) {
+            Instant due = r.nextRunAt;
+            if (due != null && !r.running && now.isAfter(due)) {
+                behindMillis = Math.max(behindMillis, Duration.between(due, now).toMillis());
+            }
+        }
+        return new Stats(registrations.size(), renewals.sum(), missed.sum(),
+                lastLagMillis.get(), maxLagMillis.get(), behindMillis);
+    }
+
+    @Override
+    public void close() {
+        for (Registration r : registrations) {
+            r.close();
+        }
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static ScheduledExecutorService newScheduler(int threads) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads,
+                new DaemonThreadFactory("iotics-token-refresher"));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Renewal statistics.
+     *
+     * @param registrations the number of active registrations
+     * @param renewals      the number of tokens renewed
+     * @param missed        the number of renewals that failed or ran after the token was due for refresh
+     * @param lastLagMillis how late, in ms, the last renewal started compared to its scheduled time
+     * @param maxLagMillis  the maximum renewal start lag, in ms
+     * @param behindMillis  how overdue, in ms, the most overdue pending renewal currently is
+     */
+    public record Stats(int registrations, long renewals, long missed,
+                        long lastLagMillis, long maxLagMillis, long behindMillis) {
+    }
+
+    /**
+     * A token kept fresh by this refresher.
+     */
+    public final class Registration implements AutoCloseable {
+        private final AuthTokenCache cache;
+        private final String audience;
+        private final Duration expiry;
+        private final Supplier<String> minter;
+        private volatile ScheduledFuture<?> future;
+        private volatile Instant nextRunAt;
+        private volatile boolean running;
+        private volatile boolean closed;
+
+        private Registration(AuthTokenCache cache, String audience, Duration expiry, Supplier<String> minter) {
+            this.cache = Objects.requireNonNull(cache);
+            this.audience = audience;
+            this.expiry = Objects.requireNonNull(expiry);
+            this.minter = Objects.requireNonNull(minter);
+        }
+
+        private void scheduleAhead(AuthTokenCache.CachedToken token) {
+            long lifetimeMillis = Duration.between(token.issuedAt(), token.expiresAt()).toMillis();
+            long windowMillis = (long) (Math.max(0, lifetimeMillis) * jitterFraction);
+            long leadMillis = windowMillis > 0 ? ThreadLocalRandom.current().nextLong(windowMillis + 1) : 0;
+            Instant runAt = token.refreshAt().minusMillis(leadMillis);
+            schedule(Duration.between(clock.instant(), runAt));
+        }
+
+        private synchronized void schedule(Duration delay) {
+            if (closed) {
+                return;
+            }
+            long delayMillis = Math.max(0, delay.toMillis());
+            nextRunAt = clock.instant().plusMillis(delayMillis);
+            future = scheduler.schedule(this::renew, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void renew() {
+            if (closed) {
+                return;
+            }
+            running = true;
+            try {
+                Instant now = clock.instant();
+                long lag = Math.max(0, Duration.between(nextRunAt, now).toMillis());
+                lastLagMillis.set(lag);
+                maxLagMillis.accumulateAndGet(lag, Math::max);
+                AuthTokenCache.CachedToken previous = cache.peek(audience, expiry);
+                if (previous != null && !now.isBefore(previous.refreshAt())) {
+                    missed.increment();
+                }
+                AuthTokenCache.CachedToken token = cache.refresh(audience, expiry, minter);
+                renewals.increment();
+                scheduleAhead(token);
+            } catch (RuntimeException e) {
+                missed.increment();
+                schedule(RETRY_DELAY);
+            } finally {
+                running = false;
+            }
+        }
+
+        /**
+         * @return the time the next renewal is scheduled at
+         */
+        public Instant nextRunAt() {
+            return nextRunAt;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            registrations.remove(this);
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,664 @@
+package smartrics.iotics.identity;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent registry of twin identities, keyed by key name, so that twins created in past runs can be looked up
+ * locally rather than recreated via the library.
+ * <p>
+ * The registry is an append only log of records in a memory mapped file: each put or remove appends a record framed
+ * by its length and CRC32, so that a record torn by a crash is detected and dropped when the file is next opened.
+ * Records are looked up via an open addressing hash index held off heap, mapping the key name hash to the offset of
+ * the latest record of the key: a lookup costs one probe sequence and the read of one record, and identities aren't
+ * kept on the heap. The index is rebuilt by scanning the log at open. Each identity is recorded with the control
+ * delegation it was created with, if any, so that a twin created without delegation isn't mistaken for one with.
+ * Superseded and removed records stay in the log until {@link #compact()} rewrites it with the live records only.
+ * <p>
+ * The file is limited to 2GB. Appends reach the file when the OS writes back the mapped pages, or on
+ * {@link #flush()}. A registry is only meaningful for the agent seed and resolver the twins were created with: the
+ * file header holds their {@link #fingerprint(String, String) fingerprint}, and a file made for another agent or
+ * resolver isn't opened. Thread safe.
+ */
+public final class TwinRegistry implements Closeable {
+
+    static final int MAGIC = 0x49545752; // ITWR
+    static final int VERSION = 2;
+    private static final int FINGERPRINT_SIZE = 32;
+    static final int HEADER_SIZE = 8 + FINGERPRINT_SIZE;
+    private static final int FRAME_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+    private static final double MAX_LOAD = 0.7;
+    private static final int MAX_FIELD_SIZE = 0xFFFF;
+    private static final int CLEAR_CHUNK = 4096;
+    private static final ByteBuffer ZEROS = ByteBuffer.allocate(CLEAR_CHUNK).asReadOnlyBuffer();
+    private static final HashFunction HASH = Hashing.murmur3_32_fixed();
+
+    private final Path file;
+    private final HashCode fingerprint;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private MappedByteBuffer data;
+    private int end;
+    private Index index;
+    private long entries;
+    private long records;
+    private boolean closed;
+
+    private TwinRegistry(Path file, HashCode fingerprint, long initialFileSize, int expectedEntries)
+            throws IOException {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.index = new Index(expectedEntries);
+        open(initialFileSize);
+    }
+
+    /**
+     * @param resolverAddress the resolver address the twins are created on
+     * @param agentSeed       the seed of the agent creating the twins
+     * @return the hex encoded SHA-256 identifying the owner of a registry
+     */
+    public static String fingerprint(String resolverAddress, String agentSeed) {
+        Hasher h = Hashing.sha256().newHasher();
+        for (String s : new String[]{resolverAddress, agentSeed}) {
+            h.putString(String.valueOf(s), StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        return h.hash().toString();
+    }
+
+    /**
+     * @return the fingerprint of the agent and resolver this registry is for
+     */
+    public String fingerprint() {
+        return fingerprint.toString();
+    }
+
+    /**
+     * @param keyName the twin key name
+     * @return the latest identity registered with this key name, with or without control delegation, or null if none
+     * or removed
+     */
+    public Identity get(String keyName) {
+        return get(keyName, null, false);
+    }
+
+    /**
+     * @param keyName             the twin key name
+     * @param controlDelegationID the control delegation the identity was registered with, null for none
+     * @return the latest identity registered with this key name, or null if none, removed or registered with another
+     * control delegation
+     */
+    public Identity get(String keyName, String controlDelegationID) {
+        return get(keyName, controlDelegationID, true);
+    }
+
+    private Identity get(String keyName, String controlDelegationID, boolean matchDelegation) {
+        byte[] key = keyName.getBytes(StandardCharsets.UTF_8);
+        int hash = HASH.hashBytes(key).asInt();
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            int offset = find(key, hash);
+            if (offset == 0 || data.get(offset + FRAME_SIZE) != PUT) {
+                return null;
+            }
+            if (matchDelegation && !readDelegation(offset).equals(Objects.toString(controlDelegationID, ""))) {
+                return null;
+            }
+            return readIdentity(offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registers an identity created without control delegation.
+     *
+     * @param identity the twin identity
+     * @throws UncheckedIOException if the file can't grow to hold the record
+     * @see #put(Identity, String)
+     */
+    public void put(Identity identity) {
+        put(identity, null);
+    }
+
+    /**
+     * Registers an identity, replacing any identity with the same key name. Registering again the same identity
+     * with the same control delegation doesn't append to the log.
+     *
+     * @param identity            the twin identity
+     * @param controlDelegationID the control delegation the twin was created with, null for none
+     * @throws UncheckedIOException if the file can't grow to hold the record
+     */
+    public void put(Identity identity, String controlDelegationID) {
+        byte[] key = identity.keyName().getBytes(StandardCharsets.UTF_8);
+        byte[] name = identity.name().getBytes(StandardCharsets.UTF_8);
+        byte[] did = identity.did().getBytes(StandardCharsets.UTF_8);
+        String delegation = Objects.toString(controlDelegationID, "");
+        byte[] deleg = delegation.getBytes(StandardCharsets.UTF_8);
+        int hash = HASH.hashBytes(key).asInt();
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            int previous = find(key, hash);
+            boolean wasLive = previous != 0 && data.get(previous + FRAME_SIZE) == PUT;
+            if (wasLive && readIdentity(previous).equals(identity) && readDelegation(previous).equals(delegation)) {
+                return;
+            }
+            int offset = append(PUT, key, name, did, deleg);
+            index.put(hash, offset, previous);
+            if (!wasLive) {
+                entries++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param keyName the twin key name
+     * @return true if an identity was registered with the key name
+     * @throws UncheckedIOException if the file can't grow to hold the record
+     */
+    public boolean remove(String keyName) {
+        byte[] key = keyName.getBytes(StandardCharsets.UTF_8);
+        int hash = HASH.hashBytes(key).asInt();
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            int previous = find(key, hash);
+            if (previous == 0 || data.get(previous + FRAME_SIZE) != PUT) {
+                return false;
+            }
+            index.put(hash, append(REMOVE, key, null, null, null), previous);
+            entries--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of registered identities
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the registry statistics
+     */
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(entries, records, end, data == null ? 0 : data.capacity());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            data.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with the live records only, dropping the superseded and removed ones. The new log is written
+     * to a temporary file and moved in place of the current one, so that a crash leaves either log intact.
+     * Lookups and updates wait for the compaction to complete.
+     *
+     * @throws IOException if the new log can't be written
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            long liveBytes = HEADER_SIZE;
+            for (int i = 0; i < index.slots(); i++) {
+                int offset = index.offset(i);
+                if (offset != 0 && data.get(offset + FRAME_SIZE) == PUT) {
+                    liveBytes += FRAME_SIZE + data.getInt(offset);
+                }
+            }
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".compact");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, liveBytes);
+                writeHeader(target);
+                int position = HEADER_SIZE;
+                for (int i = 0; i < index.slots(); i++) {
+                    int offset = index.offset(i);
+                    if (offset != 0 && data.get(offset + FRAME_SIZE) == PUT) {
+                        int length = FRAME_SIZE + data.getInt(offset);
+                        target.put(position, data, offset, length);
+                        position += length;
+                    }
+                }
+                target.force();
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            data.force();
+            channel.close();
+            long expected = entries;
+            try {
+                try {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(tmp);
+                reopen(expected, 0);
+                throw e;
+            }
+            reopen(expected, liveBytes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the appended records to the storage device and releases the file.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            data.force();
+            data = null;
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reopen(long expectedEntries, long initialFileSize) throws IOException {
+        closed = true;
+        index = new Index((int) Math.min(Integer.MAX_VALUE, expectedEntries));
+        open(initialFileSize);
+    }
+
+    private void open(long initialFileSize) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), Math.max(initialFileSize, HEADER_SIZE + FRAME_SIZE));
+        if (size > MAX_FILE_SIZE) {
+            channel.close();
+            throw new IOException("twin registry file larger than " + MAX_FILE_SIZE + " bytes: " + file);
+        }
+        data = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (data.getInt(0) == 0 && data.getInt(4) == 0) {
+            writeHeader(data);
+        } else if (data.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("not a twin registry file: " + file);
+        } else if (data.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("unsupported twin registry version " + data.getInt(4) + ": " + file);
+        } else if (!data.slice(8, FINGERPRINT_SIZE).equals(ByteBuffer.wrap(fingerprint.asBytes()))) {
+            channel.close();
+            throw new IOException("twin registry file of another agent or resolver: " + file);
+        }
+        entries = 0;
+        records = 0;
+        closed = false;
+        scan();
+    }
+
+    private void writeHeader(ByteBuffer target) {
+        target.putInt(0, MAGIC).putInt(4, VERSION).put(8, fingerprint.asBytes());
+    }
+
+    /**
+     * Rebuilds the index from the log, stopping at the first missing or corrupt record, and clears what follows so
+     * that new records are appended after the last valid one.
+     */
+    private void scan() {
+        int position = HEADER_SIZE;
+        int capacity = data.capacity();
+        CRC32 crc = new CRC32();
+        while (position <= capacity - FRAME_SIZE) {
+            int length = data.getInt(position);
+            if (length <= 0 || length > capacity - position - FRAME_SIZE) {
+                break;
+            }
+            crc.reset();
+            crc.update(data.slice(position + FRAME_SIZE, length));
+            byte op = data.get(position + FRAME_SIZE);
+            if ((int) crc.getValue() != data.getInt(position + 4) || (op != PUT && op != REMOVE)) {
+                break;
+            }
+            byte[] key = readBytes(position + FRAME_SIZE + 1);
+            int hash = HASH.hashBytes(key).asInt();
+            int previous = find(key, hash);
+            boolean wasLive = previous != 0 && data.get(previous + FRAME_SIZE) == PUT;
+            boolean isLive = op == PUT;
+            index.put(hash, position, previous);
+            entries += (isLive ? 1 : 0) - (wasLive ? 1 : 0);
+            records++;
+            position += FRAME_SIZE + length;
+        }
+        end = position;
+        clearTail();
+    }
+
+    /**
+     * Zeroes what follows the end of the log, a chunk at a time: chunks already zero, as in the common case of a
+     * clean shutdown, are only read, so that their pages aren't dirtied.
+     */
+    private void clearTail() {
+        int capacity = data.capacity();
+        for (int position = end; position < capacity; position += CLEAR_CHUNK) {
+            int length = Math.min(CLEAR_CHUNK, capacity - position);
+            ByteBuffer zeros = ZEROS.slice(0, length);
+            if (!data.slice(position, length).equals(zeros)) {
+                data.put(position, zeros, 0, length);
+            }
+        }
+    }
+
+    private int append(byte op, byte[] key, byte[] name, byte[] did, byte[] deleg) {
+        checkFieldSize(key);
+        if (op == PUT) {
+            checkFieldSize(name);
+            checkFieldSize(did);
+            checkFieldSize(deleg);
+        }
+        int length = 1 + 2 + key.length + (op == PUT ? 6 + name.length + did.length + deleg.length : 0);
+        ensureCapacity(FRAME_SIZE + length);
+        int offset = end;
+        int position = offset + FRAME_SIZE;
+        data.put(position++, op);
+        position = writeBytes(position, key);
+        if (op == PUT) {
+            position = writeBytes(position, name);
+            position = writeBytes(position, did);
+            writeBytes(position, deleg);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.slice(offset + FRAME_SIZE, length));
+        data.putInt(offset + 4, (int) crc.getValue());
+        // the length goes last: until then the scan at open sees the end of the log
+        data.putInt(offset, length);
+        end = offset + FRAME_SIZE + length;
+        records++;
+        return offset;
+    }
+
+    private void ensureCapacity(int length) {
+        long needed = (long) end + length + FRAME_SIZE;
+        if (needed <= data.capacity()) {
+            return;
+        }
+        if (needed > MAX_FILE_SIZE) {
+            throw new UncheckedIOException(new IOException("twin registry file full: " + file));
+        }
+        long size = Math.min(MAX_FILE_SIZE, Math.max(needed, 2L * data.capacity()));
+        try {
+            data = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the offset of the latest record of the key, or 0 if none
+     */
+    private int find(byte[] key, int hash) {
+        for (int i = index.bucket(hash); ; i = index.next(i)) {
+            long slot = index.slot(i);
+            if (slot == 0) {
+                return 0;
+            }
+            int offset = (int) slot;
+            if ((int) (slot >>> 32) == hash && keyEquals(offset, key)) {
+                return offset;
+            }
+        }
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        int position = offset + FRAME_SIZE + 1;
+        int length = Short.toUnsignedInt(data.getShort(position));
+        return length == key.length && data.slice(position + 2, length).equals(ByteBuffer.wrap(key));
+    }
+
+    private Identity readIdentity(int offset) {
+        int position = offset + FRAME_SIZE + 1;
+        byte[] key = readBytes(position);
+        position += 2 + key.length;
+        byte[] name = readBytes(position);
+        position += 2 + name.length;
+        byte[] did = readBytes(position);
+        return new Identity(new String(key, StandardCharsets.UTF_8), new String(name, StandardCharsets.UTF_8),
+                new String(did, StandardCharsets.UTF_8));
+    }
+
+    private String readDelegation(int offset) {
+        int position = offset + FRAME_SIZE + 1;
+        for (int i = 0; i < 3; i++) {
+            position += 2 + Short.toUnsignedInt(data.getShort(position));
+        }
+        return new String(readBytes(position), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(int position) {
+        byte[] b = new byte[Short.toUnsignedInt(data.getShort(position))];
+        data.get(position + 2, b);
+        return b;
+    }
+
+    private static void checkFieldSize(byte[] b) {
+        if (b.length > MAX_FIELD_SIZE) {
+            throw new IllegalArgumentException("identity field longer than " + MAX_FIELD_SIZE + " bytes");
+        }
+    }
+
+    private int writeBytes(int position, byte[] b) {
+        data.putShort(position, (short) b.length);
+        data.put(position + 2, b);
+        return position + 2 + b.length;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("twin registry closed: " + file);
+        }
+    }
+
+    /**
+     * Registry statistics.
+     *
+     * @param entries   the number of registered identities
+     * @param records   the number of records in the log, including the superseded and removed ones
+     * @param usedBytes the size of the log
+     * @param fileBytes the size of the file
+     */
+    public record Stats(long entries, long records, long usedBytes, long fileBytes) {
+    }
+
+    /**
+     * Open addressing hash table with linear probing, in direct memory. Each slot is a long holding the key hash in
+     * the high int and the record offset in the low int; offsets are never 0, so 0 marks an empty slot.
+     * Slots are never emptied: removed keys point to their remove record.
+     */
+    private static final class Index {
+        // keeps the table within the 2GB limit of a direct buffer
+        private static final int MAX_SLOTS = 1 << 27;
+        private ByteBuffer slots;
+        private int mask;
+        private int used;
+
+        Index(int expectedEntries) {
+            int capacity = Integer.highestOneBit((int) Math.max(16, Math.min(MAX_SLOTS / 2, expectedEntries / MAX_LOAD)) * 2 - 1);
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            slots = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+            mask = capacity - 1;
+            used = 0;
+        }
+
+        int slots() {
+            return mask + 1;
+        }
+
+        long slot(int i) {
+            return slots.getLong(i * Long.BYTES);
+        }
+
+        int offset(int i) {
+            return (int) slot(i);
+        }
+
+        int bucket(int hash) {
+            return hash & mask;
+        }
+
+        int next(int i) {
+            return (i + 1) & mask;
+        }
+
+        /**
+         * Points the key to a new record: replaces the slot of the previous record if any, or takes a new slot.
+         */
+        void put(int hash, int offset, int previous) {
+            if (previous == 0 && used + 1 > slots() * MAX_LOAD) {
+                resize();
+            }
+            long value = ((long) hash << 32) | (offset & 0xFFFFFFFFL);
+            for (int i = bucket(hash); ; i = next(i)) {
+                long slot = slot(i);
+                if (slot == 0 || (previous != 0 && (int) slot == previous)) {
+                    slots.putLong(i * Long.BYTES, value);
+                    if (slot == 0) {
+                        used++;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void resize() {
+            ByteBuffer old = slots;
+            int oldCapacity = slots();
+            if (oldCapacity >= MAX_SLOTS) {
+                throw new IllegalStateException("twin registry index full");
+            }
+            allocate(oldCapacity * 2);
+            for (int i = 0; i < oldCapacity; i++) {
+                long slot = old.getLong(i * Long.BYTES);
+                if (slot != 0) {
+                    int j = bucket((int) (slot >>> 32));
+                    while (slot(j) != 0) {
+                        j = next(j);
+                    }
+                    slots.putLong(j * Long.BYTES, slot);
+                    used++;
+                }
+            }
+        }
+    }
+
+    public static final class Builder {
+        private Path file;
+        private HashCode fingerprint;
+        private long initialFileSize;
+        private int expectedEntries;
+
+        private Builder() {
+            initialFileSize = 1 << 20;
+            expectedEntries = 1024;
+        }
+
+        public static Builder aTwinRegistry() {
+            return new Builder();
+        }
+
+        public Builder withFile(Path file) {
+            this.file = file;
+            return this;
+        }
+
+        /**
+         * @param resolverAddress the resolver address the twins are created on
+         * @param agentSeed       the seed of the agent creating the twins
+         * @return this builder
+         */
+        public Builder withOwner(String resolverAddress, String agentSeed) {
+            this.fingerprint = HashCode.fromString(TwinRegistry.fingerprint(resolverAddress, agentSeed));
+            return this;
+        }
+
+        /**
+         * @param initialFileSize the size the file is created with; the file doubles when full
+         * @return this builder
+         */
+        public Builder withInitialFileSize(long initialFileSize) {
+            this.initialFileSize = initialFileSize;
+            return this;
+        }
+
+        /**
+         * @param expectedEntries the number of entries the index is sized for; the index doubles when full
+         * @return this builder
+         */
+        public Builder withExpectedEntries(int expectedEntries) {
+            this.expectedEntries = expectedEntries;
+            return this;
+        }
+
+        /**
+         * Opens the registry, creating the file if missing, and rebuilds the index from its log.
+         *
+         * @return the registry
+         * @throws IOException if the file can't be opened, isn't a registry file or is a registry of another owner
+         */
+        public TwinRegistry build() throws IOException {
+            Objects.requireNonNull(file, "registry file");
+            Objects.requireNonNull(fingerprint, "registry owner");
+            return new TwinRegistry(file, fingerprint, initialFileSize, expectedEntries);
+        }
+    }
+}
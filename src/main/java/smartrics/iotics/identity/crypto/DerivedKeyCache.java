@@ -0,0 +1,195 @@
+package smartrics.iotics.identity.crypto;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of the keys derived by {@link SeedKeys}, so that repeated signing for the same identity doesn't run the
+ * derivation again. Entries are keyed by the SHA-256 fingerprint of the seed, the key name and the purpose: seeds are
+ * never kept. Concurrent lookups of a missing key share a single derivation. An entry holds the private exponent as
+ * bytes only, zeroed when the entry is evicted or invalidated; the key parameters are built from them on each lookup
+ * and are meant to be dropped by the caller once the signature is made.
+ */
+public class DerivedKeyCache {
+
+    private final Cache<Key, DerivedKey> cache;
+
+    private DerivedKeyCache(Cache<Key, DerivedKey> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @param seed    the hex encoded seed
+     * @param keyName the key name
+     * @param purpose the key purpose
+     * @return new parameters of the private key, derived or from the cache
+     * @throws IllegalArgumentException if the seed isn't a valid BIP39 entropy
+     */
+    public ECPrivateKeyParameters privateKey(String seed, String keyName, KeyPurpose purpose) {
+        while (true) {
+            ECPrivateKeyParameters privateKey = get(seed, keyName, purpose).privateKey();
+            if (privateKey != null) {
+                return privateKey;
+            }
+            // zeroed by a concurrent eviction: the next lookup derives it again
+        }
+    }
+
+    /**
+     * @param seed    the hex encoded seed
+     * @param keyName the key name
+     * @param purpose the key purpose
+     * @return a copy of the uncompressed public key
+     */
+    public byte[] publicKey(String seed, String keyName, KeyPurpose purpose) {
+        return get(seed, keyName, purpose).publicKey().clone();
+    }
+
+    /**
+     * Evicts the key derived from this seed, key name and purpose, if cached.
+     */
+    public void invalidate(String seed, String keyName, KeyPurpose purpose) {
+        cache.invalidate(key(seed, keyName, purpose));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the cache statistics
+     */
+    public Stats stats() {
+        CacheStats s = cache.stats();
+        return new Stats(s.hitCount(), s.loadCount(), s.evictionCount(), cache.size());
+    }
+
+    DerivedKey peek(String seed, String keyName, KeyPurpose purpose) {
+        return cache.getIfPresent(key(seed, keyName, purpose));
+    }
+
+    private DerivedKey get(String seed, String keyName, KeyPurpose purpose) {
+        try {
+            return cache.get(key(seed, keyName, purpose), () -> new DerivedKey(SeedKeys.privateExponent(seed, keyName, purpose)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Key key(String seed, String keyName, KeyPurpose purpose) {
+        return new Key(Hashing.sha256().hashString(seed, StandardCharsets.UTF_8), keyName, purpose);
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hits      the number of keys served from the cache
+     * @param misses    the number of keys derived
+     * @param evictions the number of keys evicted because expired or beyond the size bound
+     * @param size      the current number of keys
+     */
+    public record Stats(long hits, long misses, long evictions, long size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+    }
+
+    private record Key(HashCode seedFingerprint, String keyName, KeyPurpose purpose) {
+    }
+
+    static final class DerivedKey {
+        private final byte[] privateExponent;
+        private final byte[] publicKey;
+        private boolean destroyed;
+
+        private DerivedKey(byte[] privateExponent) {
+            this.privateExponent = privateExponent;
+            this.publicKey = SeedKeys.publicKey(privateKey());
+        }
+
+        /**
+         * @return new parameters of the private key, or null if zeroed
+         */
+        synchronized ECPrivateKeyParameters privateKey() {
+            return destroyed ? null : new ECPrivateKeyParameters(new BigInteger(1, privateExponent), SeedKeys.DOMAIN);
+        }
+
+        byte[] publicKey() {
+            return publicKey;
+        }
+
+        synchronized boolean isZeroed() {
+            for (byte b : privateExponent) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return destroyed;
+        }
+
+        private synchronized void destroy() {
+            destroyed = true;
+            Arrays.fill(privateExponent, (byte) 0);
+        }
+    }
+
+    public static final class Builder {
+        private long maximumEntries;
+        private Duration expireAfterAccess;
+
+        private Builder() {
+            maximumEntries = 1_000;
+        }
+
+        public static Builder aDerivedKeyCache() {
+            return new Builder();
+        }
+
+        public Builder withMaximumEntries(long maximumEntries) {
+            this.maximumEntries = maximumEntries;
+            return this;
+        }
+
+        /**
+         * @param expireAfterAccess the time after which a key not used is evicted; never if not set
+         * @return this builder
+         */
+        public Builder withExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        public DerivedKeyCache build() {
+            RemovalListener<Key, DerivedKey> zeroing = n -> {
+                if (n.getValue() != null) {
+                    n.getValue().destroy();
+                }
+            };
+            CacheBuilder<Key, DerivedKey> b = CacheBuilder.newBuilder()
+                    .removalListener(zeroing)
+                    .maximumSize(maximumEntries)
+                    .recordStats();
+            if (expireAfterAccess != null) {
+                b.expireAfterAccess(expireAfterAccess.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return new DerivedKeyCache(b.build());
+        }
+    }
+}
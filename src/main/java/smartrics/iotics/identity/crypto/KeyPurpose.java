@@ -0,0 +1,20 @@
+package smartrics.iotics.identity.crypto;
+
+/**
+ * The purpose of a seed derived key, part of the derivation path.
+ */
+public enum KeyPurpose {
+    USER("user"),
+    AGENT("agent"),
+    TWIN("twin");
+
+    private final String pathSegment;
+
+    KeyPurpose(String pathSegment) {
+        this.pathSegment = pathSegment;
+    }
+
+    public String pathSegment() {
+        return pathSegment;
+    }
+}
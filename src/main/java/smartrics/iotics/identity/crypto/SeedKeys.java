@@ -0,0 +1,106 @@
+package smartrics.iotics.identity.crypto;
+
+import org.bitcoinj.crypto.MnemonicCode;
+import org.bitcoinj.crypto.MnemonicException;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Derivation of secp256k1 keys from a seed and a key name, in the JVM.
+ * The seed is turned into its BIP39 mnemonic and then into the BIP39 seed, with an empty password; the private
+ * exponent is the first 32 bytes of the HMAC-SHA512, keyed by that BIP39 seed, of the path
+ * <code>iotics/0/&lt;purpose&gt;/&lt;keyName&gt;</code>.
+ */
+public final class SeedKeys {
+
+    public static final String PATH_PREFIX = "iotics/0";
+
+    static final X9ECParameters CURVE = CustomNamedCurves.getByName("secp256k1");
+    public static final ECDomainParameters DOMAIN = new ECDomainParameters(
+            CURVE.getCurve(), CURVE.getG(), CURVE.getN(), CURVE.getH());
+
+    private SeedKeys() {
+    }
+
+    /**
+     * @param seed    the hex encoded seed, as created by {@link smartrics.iotics.identity.Seeds#CreateDefaultSeed()}
+     * @param keyName the key name
+     * @param purpose the key purpose
+     * @return the private key
+     * @throws IllegalArgumentException if the seed isn't a valid BIP39 entropy
+     */
+    public static ECPrivateKeyParameters privateKey(String seed, String keyName, KeyPurpose purpose) {
+        byte[] d = privateExponent(seed, keyName, purpose);
+        try {
+            return new ECPrivateKeyParameters(new BigInteger(1, d), DOMAIN);
+        } finally {
+            Arrays.fill(d, (byte) 0);
+        }
+    }
+
+    /**
+     * @param seed    the hex encoded seed
+     * @param keyName the key name
+     * @param purpose the key purpose
+     * @return the 32 bytes big endian private exponent; callers should zero it when no longer needed
+     * @throws IllegalArgumentException if the seed isn't a valid BIP39 entropy
+     */
+    public static byte[] privateExponent(String seed, String keyName, KeyPurpose purpose) {
+        byte[] bip39Seed = bip39Seed(seed);
+        byte[] path = path(keyName, purpose).getBytes(StandardCharsets.UTF_8);
+        HMac hmac = new HMac(new SHA512Digest());
+        hmac.init(new KeyParameter(bip39Seed));
+        hmac.update(path, 0, path.length);
+        byte[] out = new byte[hmac.getMacSize()];
+        hmac.doFinal(out, 0);
+        byte[] d = Arrays.copyOf(out, 32);
+        Arrays.fill(bip39Seed, (byte) 0);
+        Arrays.fill(out, (byte) 0);
+        BigInteger exponent = new BigInteger(1, d);
+        if (exponent.signum() == 0 || exponent.compareTo(DOMAIN.getN()) >= 0) {
+            Arrays.fill(d, (byte) 0);
+            throw new IllegalArgumentException("derived key out of range for key name " + keyName);
+        }
+        return d;
+    }
+
+    /**
+     * @param privateKey the private key
+     * @return the uncompressed public key, 65 bytes starting with 0x04
+     */
+    public static byte[] publicKey(ECPrivateKeyParameters privateKey) {
+        return DOMAIN.getG().multiply(privateKey.getD()).normalize().getEncoded(false);
+    }
+
+    static String path(String keyName, KeyPurpose purpose) {
+        return PATH_PREFIX + "/" + purpose.pathSegment() + "/" + keyName;
+    }
+
+    private static byte[] bip39Seed(String seed) {
+        byte[] entropy;
+        try {
+            entropy = Hex.decode(seed);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("seed not hex encoded", e);
+        }
+        try {
+            List<String> words = MnemonicCode.INSTANCE.toMnemonic(entropy);
+            return MnemonicCode.toSeed(words, "");
+        } catch (MnemonicException e) {
+            throw new IllegalArgumentException("invalid seed length: " + entropy.length, e);
+        } finally {
+            Arrays.fill(entropy, (byte) 0);
+        }
+    }
+}
@@ -1,81 +1,411 @@
 package smartrics.iotics.identity.experimental;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 
-import java.text.SimpleDateFormat;
-import java.util.Base64;
-import java.util.Date;
-import java.util.TimeZone;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 
+/**
+ * Read only view of a JWT. Only the token structure is checked at construction: header and payload are decoded,
+ * from base64url or base64, on first access, and the registered claims are read with a single streaming scan of the
+ * decoded payload, without building a JSON tree. Instances are immutable once initialised and safe to share between
+ * threads.
+ */
 public class JWT {
-    private final String header;
-    private final String signature;
-    private final String payload;
+    private static final Gson GSON = new Gson();
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MMM-dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+        DECODE['+'] = DECODE['-'] = 62;
+        DECODE['/'] = DECODE['_'] = 63;
+    }
+
+    private final String token;
+    private final int firstDot;
+    private final int secondDot;
+
+    // lazily initialised; racing threads compute the same values
+    private volatile String header;
+    private volatile byte[] payloadBytes;
+    private volatile String payload;
+    private volatile Claims claims;
+
+    public JWT(String token) {
+        int first = token == null ? -1 : token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0 || token.indexOf('.', second + 1) >= 0) {
+            throw new IllegalArgumentException("Invalid JWT token");
+        }
+        this.token = token;
+        this.firstDot = first;
+        this.secondDot = second;
+    }
 
     public String header() {
-        return header;
+        String h = header;
+        if (h == null) {
+            header = h = new String(decode(token, 0, firstDot), StandardCharsets.UTF_8);
+        }
+        return h;
     }
 
     public String signature() {
-        return signature;
+        return token.substring(secondDot + 1);
     }
 
     public String payload() {
-        return payload;
+        String p = payload;
+        if (p == null) {
+            payload = p = new String(payloadBytes(), StandardCharsets.UTF_8);
+        }
+        return p;
     }
 
-    public JWT(String token) {
-        String[] chunks = token.split("\\.");
-        Base64.Decoder decoder = Base64.getDecoder();
+    /**
+     * @return the <code>exp</code> claim, in seconds since the epoch, or null if missing
+     */
+    public Long exp() {
+        return claims().exp;
+    }
 
-        try {
-            this.header = new String(decoder.decode(chunks[0]));
-            this.payload = new String(decoder.decode(chunks[1]));
-            this.signature = chunks[2];
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid JWT token", e);
+    /**
+     * @return the <code>iat</code> claim, in seconds since the epoch, or null if missing
+     */
+    public Long iat() {
+        return claims().iat;
+    }
+
+    /**
+     * @return the <code>aud</code> claim, the first audience if many, or null if missing
+     */
+    public String aud() {
+        return claims().aud;
+    }
+
+    /**
+     * @return the <code>iss</code> claim, or null if missing
+     */
+    public String iss() {
+        return claims().iss;
+    }
+
+    /**
+     * @return the <code>sub</code> claim, or null if missing
+     */
+    public String sub() {
+        return claims().sub;
+    }
+
+    private byte[] payloadBytes() {
+        byte[] b = payloadBytes;
+        if (b == null) {
+            payloadBytes = b = decode(token, firstDot + 1, secondDot);
         }
+        return b;
     }
 
-    public String toNiceString() {
-        Gson gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .create();
-        JsonObject h = gson.fromJson(this.header, JsonObject.class);
+    private Claims claims() {
+        Claims c = claims;
+        if (c == null) {
+            try {
+                claims = c = new ClaimsScanner(payloadBytes()).scan();
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid JWT token", e);
+            }
+        }
+        return c;
+    }
 
+    public String toNiceString() {
         try {
-            JsonObject p = gson.fromJson(this.payload, JsonObject.class);
+            JsonObject h = GSON.fromJson(header(), JsonObject.class);
+            JsonObject p = GSON.fromJson(payload(), JsonObject.class);
             long exp = p.get("exp").getAsLong();
             long iat = p.get("iat").getAsLong();
 
-            SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MMM-dd HH:mm:ss");
-            simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-
-            String sExp = simpleDateFormat.format(new Date(exp * 1000));
-            String sIat = simpleDateFormat.format(new Date(iat * 1000));
             p.remove("exp");
             p.remove("iat");
-            p.addProperty("exp", sExp);
-            p.addProperty("iat", sIat);
+            p.addProperty("exp", DATE_FORMAT.format(Instant.ofEpochSecond(exp)));
+            p.addProperty("iat", DATE_FORMAT.format(Instant.ofEpochSecond(iat)));
 
-            JsonObject obj = gson.fromJson("{}", JsonObject.class);
+            JsonObject obj = new JsonObject();
             obj.add("header", h);
             obj.add("payload", p);
-            obj.addProperty("signature", this.signature);
+            obj.addProperty("signature", signature());
             return obj.toString();
         } catch (Exception e) {
             throw new RuntimeException("Invalid token", e);
         }
     }
 
+    /**
+     * Decodes base64url or base64, padded or not, straight from the token chars.
+     */
+    private static byte[] decode(String s, int from, int to) {
+        int end = to;
+        while (end > from && s.charAt(end - 1) == '=') {
+            end--;
+        }
+        int len = end - from;
+        if (len % 4 == 1) {
+            throw new IllegalArgumentException("Invalid JWT token");
+        }
+        byte[] out = new byte[len * 3 / 4];
+        int bits = 0;
+        int nbits = 0;
+        int o = 0;
+        for (int i = from; i < end; i++) {
+            char c = s.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) {
+                throw new IllegalArgumentException("Invalid JWT token");
+            }
+            bits = (bits << 6) | v;
+            nbits += 6;
+            if (nbits >= 8) {
+                nbits -= 8;
+                out[o++] = (byte) (bits >> nbits);
+            }
+        }
+        return out;
+    }
+
     @Override
     public String toString() {
         return "JWT{" +
-                "header='" + header + '\'' +
-                ", payload='" + payload + '\'' +
-                ", signature='" + signature + '\'' +
+                "header='" + header() + '\'' +
+                ", payload='" + payload() + '\'' +
+                ", signature='" + signature() + '\'' +
                 '}';
     }
+
+    private record Claims(Long exp, Long iat, String aud, String iss, String sub) {
+    }
+
+    /**
+     * Reads the top level registered claims of a JSON object, skipping everything else.
+     */
+    private static final class ClaimsScanner {
+        private final byte[] b;
+        private int pos;
+        private Long exp;
+        private Long iat;
+        private String aud;
+        private String iss;
+        private String sub;
+
+        ClaimsScanner(byte[] b) {
+            this.b = b;
+        }
+
+        Claims scan() {
+            expect('{');
+            skipWs();
+            if (peek() == '}') {
+                return new Claims(null, null, null, null, null);
+            }
+            while (true) {
+                skipWs();
+                int keyStart = pos + 1;
+                skipString();
+                int keyLen = pos - 1 - keyStart;
+                expect(':');
+                skipWs();
+                readValue(keyStart, keyLen);
+                skipWs();
+                byte c = next();
+                if (c == '}') {
+                    return new Claims(exp, iat, aud, iss, sub);
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("unexpected char at " + (pos - 1));
+                }
+            }
+        }
+
+        private void readValue(int keyStart, int keyLen) {
+            if (keyLen != 3) {
+                skipValue();
+                return;
+            }
+            if (is(keyStart, 'e', 'x', 'p')) {
+                exp = readLong();
+            } else if (is(keyStart, 'i', 'a', 't')) {
+                iat = readLong();
+            } else if (is(keyStart, 'a', 'u', 'd')) {
+                aud = readAudience();
+            } else if (is(keyStart, 'i', 's', 's')) {
+                iss = readString();
+            } else if (is(keyStart, 's', 'u', 'b')) {
+                sub = readString();
+            } else {
+                skipValue();
+            }
+        }
+
+        private boolean is(int at, char c0, char c1, char c2) {
+            return b[at] == c0 && b[at + 1] == c1 && b[at + 2] == c2;
+        }
+
+        private Long readLong() {
+            if (peek() == 'n') {
+                skipValue();
+                return null;
+            }
+            int start = pos;
+            boolean fraction = false;
+            while (pos < b.length && isNumberChar(b[pos])) {
+                fraction |= b[pos] == '.' || b[pos] == 'e' || b[pos] == 'E';
+                pos++;
+            }
+            String n = new String(b, start, pos - start, StandardCharsets.US_ASCII);
+            return fraction ? (long) Double.parseDouble(n) : Long.parseLong(n);
+        }
+
+        private String readAudience() {
+            if (peek() != '[') {
+                return readString();
+            }
+            pos++;
+            skipWs();
+            String first = null;
+            if (peek() == '"') {
+                first = readString();
+            } else if (peek() != ']') {
+                skipValue();
+            }
+            while (true) {
+                skipWs();
+                byte c = next();
+                if (c == ']') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("unexpected char at " + (pos - 1));
+                }
+                skipWs();
+                skipValue();
+            }
+            return first;
+        }
+
+        private String readString() {
+            if (peek() == 'n') {
+                skipValue();
+                return null;
+            }
+            expect('"');
+            int start = pos;
+            while (b[pos] != '"' && b[pos] != '\\') {
+                pos++;
+            }
+            if (b[pos] == '"') {
+                return new String(b, start, pos++ - start, StandardCharsets.UTF_8);
+            }
+            StringBuilder sb = new StringBuilder(new String(b, start, pos - start, StandardCharsets.UTF_8));
+            while (true) {
+                byte c = b[pos];
+                if (c == '"') {
+                    pos++;
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    byte e = b[pos + 1];
+                    pos += 2;
+                    switch (e) {
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'u' -> {
+                            sb.append((char) Integer.parseInt(new String(b, pos, 4, StandardCharsets.US_ASCII), 16));
+                            pos += 4;
+                        }
+                        default -> sb.append((char) e);
+                    }
+                } else {
+                    int runStart = pos;
+                    while (b[pos] != '"' && b[pos] != '\\') {
+                        pos++;
+                    }
+                    sb.append(new String(b, runStart, pos - runStart, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        private void skipValue() {
+            byte c = peek();
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                do {
+                    c = b[pos];
+                    if (c == '"') {
+                        skipString();
+                        continue;
+                    }
+                    if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                    pos++;
+                } while (depth > 0);
+            } else {
+                while (pos < b.length && b[pos] != ',' && b[pos] != '}' && b[pos] != ']' && !isWs(b[pos])) {
+                    pos++;
+                }
+            }
+        }
+
+        private void skipString() {
+            expect('"');
+            while (b[pos] != '"') {
+                pos += b[pos] == '\\' ? 2 : 1;
+            }
+            pos++;
+        }
+
+        private void expect(char c) {
+            skipWs();
+            if (next() != c) {
+                throw new IllegalArgumentException("expected '" + c + "' at " + (pos - 1));
+            }
+        }
+
+        private byte peek() {
+            return b[pos];
+        }
+
+        private byte next() {
+            return b[pos++];
+        }
+
+        private void skipWs() {
+            while (pos < b.length && isWs(b[pos])) {
+                pos++;
+            }
+        }
+
+        private static boolean isWs(byte c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+
+        private static boolean isNumberChar(byte c) {
+            return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+        }
+    }
 }
@@ -0,0 +1,146 @@
+package smartrics.iotics.identity.experimental;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.util.BigIntegers;
+import smartrics.iotics.identity.crypto.DerivedKeyCache;
+import smartrics.iotics.identity.crypto.KeyPurpose;
+import smartrics.iotics.identity.crypto.SeedKeys;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Mints agent authentication tokens in the JVM, with the same claims as the native
+ * <code>CreateAgentAuthToken</code>: <code>aud</code>, <code>exp</code>, <code>iat</code>, <code>iss</code>
+ * (the agent DID and name, as <code>did#name</code>) and <code>sub</code> (the user DID), signed with ES256 over the
+ * agent key derived by {@link SeedKeys}.
+ * Signatures use deterministic nonces (RFC 6979). Thread safe.
+ * <p>
+ * Experimental: the key derivation and the token layout follow the Go library but haven't been checked yet against
+ * vectors captured from the native SDK, so tokens may not be accepted by a resolver.
+ */
+public class JavaTokenEngine {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"ES256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final Clock clock;
+    private final DerivedKeyCache keys;
+
+    public JavaTokenEngine() {
+        this(Clock.systemUTC());
+    }
+
+    public JavaTokenEngine(Clock clock) {
+        this(clock, DerivedKeyCache.Builder.aDerivedKeyCache().build());
+    }
+
+    /**
+     * @param clock the clock used for the <code>iat</code> and <code>exp</code> claims
+     * @param keys  the cache of the agent keys derived from their seed
+     */
+    public JavaTokenEngine(Clock clock, DerivedKeyCache keys) {
+        this.clock = Objects.requireNonNull(clock);
+        this.keys = Objects.requireNonNull(keys);
+    }
+
+    /**
+     * Same as the native <code>CreateAgentAuthToken</code>.
+     *
+     * @param agentDid     the agent DID
+     * @param agentKeyName the agent key name
+     * @param agentName    the agent key id in its DID document
+     * @param agentSeed    the agent seed
+     * @param userDid      the user DID
+     * @param audience     the token audience
+     * @param duration     the token validity
+     * @return the signed token
+     */
+    public String createAgentAuthToken(String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                       String userDid, String audience, Duration duration) {
+        return createAgentAuthToken(agentDid, agentName, keys.privateKey(agentSeed, agentKeyName, KeyPurpose.AGENT),
+                userDid, audience, duration);
+    }
+
+    /**
+     * Mints a token with an already derived agent key.
+     *
+     * @param agentDid  the agent DID
+     * @param agentName the agent key id in its DID document
+     * @param agentKey  the agent private key
+     * @param userDid   the user DID
+     * @param audience  the token audience
+     * @param duration  the token validity
+     * @return the signed token
+     */
+    public String createAgentAuthToken(String agentDid, String agentName, ECPrivateKeyParameters agentKey,
+                                       String userDid, String audience, Duration duration) {
+        long iat = clock.instant().getEpochSecond();
+        String signed = HEADER + "." + ENCODER.encodeToString(claims(agentDid, agentName, userDid, audience,
+                iat, iat + duration.toSeconds()));
+        return signed + "." + ENCODER.encodeToString(sign(agentKey, signed.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static byte[] claims(String agentDid, String agentName, String userDid, String audience, long iat, long exp) {
+        String name = agentName.startsWith("#") ? agentName : "#" + agentName;
+        StringBuilder b = new StringBuilder(256);
+        b.append("{\"aud\":");
+        quote(b, audience);
+        b.append(",\"exp\":").append(exp);
+        b.append(",\"iat\":").append(iat);
+        b.append(",\"iss\":");
+        quote(b, agentDid + name);
+        b.append(",\"sub\":");
+        quote(b, userDid);
+        b.append('}');
+        return b.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a JSON string escaped as Go's <code>encoding/json</code> does, HTML characters included, so that
+     * claims match the native ones byte for byte.
+     */
+    private static void quote(StringBuilder b, String s) {
+        b.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> b.append("\\\"");
+                case '\\' -> b.append("\\\\");
+                case '\n' -> b.append("\\n");
+                case '\r' -> b.append("\\r");
+                case '\t' -> b.append("\\t");
+                default -> {
+                    if (c < 0x20 || c == '<' || c == '>' || c == '&' || c == '\u2028' || c == '\u2029') {
+                        b.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        b.append(c);
+                    }
+                }
+            }
+        }
+        b.append('"');
+    }
+
+    static byte[] sign(ECPrivateKeyParameters key, byte[] data) {
+        SHA256Digest digest = new SHA256Digest();
+        byte[] hash = new byte[digest.getDigestSize()];
+        digest.update(data, 0, data.length);
+        digest.doFinal(hash, 0);
+        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+        signer.init(true, key);
+        BigInteger[] rs = signer.generateSignature(hash);
+        byte[] signature = new byte[64];
+        BigIntegers.asUnsignedByteArray(rs[0], signature, 0, 32);
+        BigIntegers.asUnsignedByteArray(rs[1], signature, 32, 32);
+        return signature;
+    }
+}
@@ -0,0 +1,38 @@
+package smartrics.iotics.identity.go;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Raw pair of C strings returned by the library. Both pointers are owned by the caller and must be released with
+ * <code>FreeUpCString</code> once decoded.
+ */
+public class PointerResult extends Structure implements Structure.ByValue {
+    // need to be public for jna to work
+    public Pointer value;
+    public Pointer err;
+
+    // needed for jna to instantiate this class
+    public PointerResult() {
+    }
+
+    public PointerResult(Pointer value, Pointer err) {
+        this.value = value;
+        this.err = err;
+    }
+
+    protected List<String> getFieldOrder() {
+        return Arrays.asList("value", "err");
+    }
+
+    @Override
+    public String toString() {
+        return "PointerResult{" +
+                "value=" + value +
+                ", err=" + err +
+                '}';
+    }
+}
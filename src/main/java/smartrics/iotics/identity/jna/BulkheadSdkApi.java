@@ -0,0 +1,161 @@
+package smartrics.iotics.identity.jna;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * {@link SdkApi} decorator limiting the number of concurrent calls into the library, so that a flood of callers
+ * doesn't overload the Go runtime. In-process crypto operations and operations reaching the resolver (see
+ * {@link SdkApiMethod.Category}) take permits from separate pools, so that slow resolver calls, including token
+ * verification, can't starve token minting. Callers wait in FIFO order for a permit up to a queue timeout; on
+ * timeout, or if interrupted, the call isn't made and returns an error result.
+ */
+public class BulkheadSdkApi extends ForwardingSdkApi {
+
+    private final Map<SdkApiMethod.Category, Pool> pools = new EnumMap<>(SdkApiMethod.Category.class);
+    private final long queueTimeoutNanos;
+
+    private BulkheadSdkApi(SdkApi delegate, int cryptoPermits, int resolverPermits, Duration queueTimeout) {
+        super(delegate);
+        this.pools.put(SdkApiMethod.Category.CRYPTO, new Pool(cryptoPermits));
+        this.pools.put(SdkApiMethod.Category.RESOLVER, new Pool(resolverPermits));
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+    }
+
+    @Override
+    protected <T> T call(SdkApiMethod method, Supplier<T> call) {
+        Pool pool = pools.get(method.category());
+        long start = System.nanoTime();
+        pool.waiting.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = pool.permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.rejected.increment();
+            return errorResult(method, "interrupted while waiting for a " + method.category() + " permit");
+        } finally {
+            pool.waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            pool.rejected.increment();
+            return errorResult(method, "timed out waiting for a " + method.category() + " permit after "
+                    + TimeUnit.NANOSECONDS.toMillis(queueTimeoutNanos) + "ms");
+        }
+        pool.queueing.record(System.nanoTime() - start);
+        try {
+            return call.get();
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * @param category the pool
+     * @return the current statistics of the pool
+     */
+    public PoolStats stats(SdkApiMethod.Category category) {
+        Pool p = pools.get(category);
+        return new PoolStats(category, p.size, p.permits.availablePermits(), p.waiting.get(),
+                p.queueing.count(), p.rejected.sum(),
+                p.queueing.mean(), p.queueing.percentile(0.99), p.queueing.max());
+    }
+
+    /**
+     * Statistics of a permit pool.
+     *
+     * @param category       the operations using the pool
+     * @param permits        the pool size
+     * @param available      the permits currently free
+     * @param waiting        the callers currently waiting for a permit
+     * @param acquired       the number of permits granted
+     * @param rejected       the number of calls failed because no permit was granted in time
+     * @param meanQueueNanos the mean time waited for a granted permit
+     * @param p99QueueNanos  the 99th percentile of the time waited for a granted permit
+     * @param maxQueueNanos  the longest time waited for a granted permit
+     */
+    public record PoolStats(SdkApiMethod.Category category, int permits, int available, int waiting,
+                            long acquired, long rejected,
+                            long meanQueueNanos, long p99QueueNanos, long maxQueueNanos) {
+    }
+
+    private static final class Pool {
+        private final int size;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder rejected = new LongAdder();
+        private final LatencyHistogram queueing = new LatencyHistogram();
+
+        private Pool(int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("permits must be positive: " + size);
+            }
+            this.size = size;
+            this.permits = new Semaphore(size, true);
+        }
+    }
+
+    public static final class Builder {
+        private SdkApi delegate;
+        private int cryptoPermits;
+        private int resolverPermits;
+        private Duration queueTimeout;
+
+        private Builder() {
+            cryptoPermits = Runtime.getRuntime().availableProcessors();
+            resolverPermits = 4;
+            queueTimeout = Duration.ofSeconds(30);
+        }
+
+        public static Builder aBulkheadSdkApi() {
+            return new Builder();
+        }
+
+        public Builder withDelegate(SdkApi delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * @param cryptoPermits the maximum concurrent in-process crypto calls; defaults to the number of processors
+         * @return this builder
+         */
+        public Builder withCryptoPermits(int cryptoPermits) {
+            this.cryptoPermits = cryptoPermits;
+            return this;
+        }
+
+        /**
+         * @param resolverPermits the maximum concurrent calls reaching the resolver; defaults to 4
+         * @return this builder
+         */
+        public Builder withResolverPermits(int resolverPermits) {
+            this.resolverPermits = resolverPermits;
+            return this;
+        }
+
+        /**
+         * @param queueTimeout the maximum time a call waits for a permit; defaults to 30s
+         * @return this builder
+         */
+        public Builder withQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+            return this;
+        }
+
+        public BulkheadSdkApi build() {
+            Objects.requireNonNull(delegate, "delegate api");
+            if (queueTimeout == null || queueTimeout.isNegative()) {
+                throw new IllegalArgumentException("invalid queue timeout: " + queueTimeout);
+            }
+            return new BulkheadSdkApi(delegate, cryptoPermits, resolverPermits, queueTimeout);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package smartrics.iotics.identity.jna;
+
+import static smartrics.iotics.identity.jna.JnaSdkApiInitialiser.LIB_NAME;
+import static smartrics.iotics.identity.jna.JnaSdkApiInitialiser.LIB_PATH;
+
+/**
+ * Native library loader using JNA direct mapping, see {@link DirectSdkNativeApi}.
+ * It avoids the per call cost of the reflective proxy used by {@link JnaSdkApiInitialiser}; the two are
+ * interchangeable, with the restriction that direct mapping binds one library per JVM.
+ */
+public class DirectJnaSdkApiInitialiser implements SdkApiInitialiser {
+
+    private final SdkApi idProxy;
+
+    /**
+     * Initialiser with path to the native library as per {@link JnaSdkApiInitialiser#JnaSdkApiInitialiser()}
+     */
+    public DirectJnaSdkApiInitialiser() {
+        String path = System.getProperty("ioticsIdentityLibraryFile");
+        if (path != null) {
+            try {
+                this.idProxy = load(path);
+            } catch (UnsatisfiedLinkError e) {
+                throw new IllegalStateException("unable to load library from path supplied in -DioticsIdentityLibraryFile");
+            }
+            return;
+        }
+        SdkApi api;
+        try {
+            api = load(LIB_NAME);
+        } catch (UnsatisfiedLinkError e) {
+            api = load(LIB_PATH);
+        }
+        this.idProxy = api;
+    }
+
+    /**
+     * Initialiser with custom library path
+     *
+     * @param libPath the library path
+     */
+    public DirectJnaSdkApiInitialiser(String libPath) {
+        this.idProxy = load(libPath);
+    }
+
+    private static SdkApi load(String path) {
+        return new FreeingSdkApi(DirectSdkNativeApi.register(path));
+    }
+
+    @Override
+    public final SdkApi get() {
+        return idProxy;
+    }
+}
@@ -0,0 +1,188 @@
+package smartrics.iotics.identity.jna;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import smartrics.iotics.identity.go.PointerResult;
+
+/**
+ * Raw library interface bound with JNA direct mapping: calls go straight to registered static native methods rather
+ * than via the reflective proxy built by <code>Native.loadLibrary</code>.
+ * Direct mapping binds the methods of a class once per class loader, hence only one library path can be registered.
+ * Registration resolves every native method up front, so the operations of {@link SdkNativeApi} that the library
+ * doesn't export (<code>CreateTwinIdentity</code> and <code>RecreateTwinIdentity</code>) go through a proxy bound on
+ * first use instead, and fail with an {@link UnsatisfiedLinkError} when called, as with the proxy backend.
+ */
+public final class DirectSdkNativeApi implements SdkNativeApi {
+    private static final DirectSdkNativeApi INSTANCE = new DirectSdkNativeApi();
+    private static String registeredPath;
+    private static volatile SdkNativeApi lazyProxy;
+
+    private DirectSdkNativeApi() {
+    }
+
+    /**
+     * Binds the native methods to the library at this path, if not already bound.
+     *
+     * @param libPath the library path or name
+     * @return the interface to the library
+     * @throws IllegalStateException if already bound to a library at a different path
+     */
+    public static synchronized DirectSdkNativeApi register(String libPath) {
+        if (registeredPath == null) {
+            Native.register(Natives.class, libPath);
+            registeredPath = libPath;
+        } else if (!registeredPath.equals(libPath)) {
+            throw new IllegalStateException("direct mapping already registered with library " + registeredPath);
+        }
+        return INSTANCE;
+    }
+
+    @Override
+    public PointerResult CreateDefaultSeed() {
+        return Natives.CreateDefaultSeed();
+    }
+
+    @Override
+    public PointerResult MnemonicBip39ToSeed(String mnemonics) {
+        return Natives.MnemonicBip39ToSeed(mnemonics);
+    }
+
+    @Override
+    public PointerResult SeedBip39ToMnemonic(String seed) {
+        return Natives.SeedBip39ToMnemonic(seed);
+    }
+
+    @Override
+    public PointerResult RecreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return Natives.RecreateAgentIdentity(resolverAddress, keyName, name, seed);
+    }
+
+    @Override
+    public PointerResult RecreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return lazyProxy().RecreateTwinIdentity(resolverAddress, keyName, name, seed);
+    }
+
+    @Override
+    public PointerResult RecreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return Natives.RecreateUserIdentity(resolverAddress, keyName, name, seed);
+    }
+
+    @Override
+    public PointerResult CreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return Natives.CreateAgentIdentity(resolverAddress, keyName, name, seed);
+    }
+
+    @Override
+    public PointerResult CreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return lazyProxy().CreateTwinIdentity(resolverAddress, keyName, name, seed);
+    }
+
+    @Override
+    public PointerResult CreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return Natives.CreateUserIdentity(resolverAddress, keyName, name, seed);
+    }
+
+    @Override
+    public PointerResult CreateTwinDidWithControlDelegation(String resolverAddress, String agentDid, String agentKeyName,
+                                                            String agentName, String agentSeed,
+                                                            String twinKeyName, String twinName) {
+        return Natives.CreateTwinDidWithControlDelegation(resolverAddress, agentDid, agentKeyName, agentName, agentSeed,
+                twinKeyName, twinName);
+    }
+
+    @Override
+    public Pointer UserDelegatesAuthenticationToAgent(String resolverAddress,
+                                                      String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                                      String userDid, String userKeyName, String userName, String userSeed,
+                                                      String delegationName) {
+        return Natives.UserDelegatesAuthenticationToAgent(resolverAddress,
+                agentDid, agentKeyName, agentName, agentSeed,
+                userDid, userKeyName, userName, userSeed,
+                delegationName);
+    }
+
+    @Override
+    public PointerResult IsAllowedFor(String resolverAddress, String token) {
+        return Natives.IsAllowedFor(resolverAddress, token);
+    }
+
+    @Override
+    public Pointer TwinDelegatesControlToAgent(String resolverAddress,
+                                               String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                               String twinDid, String twinKeyName, String twinName, String twinSeed,
+                                               String delegationName) {
+        return Natives.TwinDelegatesControlToAgent(resolverAddress,
+                agentDid, agentKeyName, agentName, agentSeed,
+                twinDid, twinKeyName, twinName, twinSeed,
+                delegationName);
+    }
+
+    @Override
+    public PointerResult CreateAgentAuthToken(String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                              String userDid, String audience, long durationInSeconds) {
+        return Natives.CreateAgentAuthToken(agentDid, agentKeyName, agentName, agentSeed, userDid, audience,
+                durationInSeconds);
+    }
+
+    @Override
+    public void FreeUpCString(Pointer pointer) {
+        Natives.FreeUpCString(pointer);
+    }
+
+    private static SdkNativeApi lazyProxy() {
+        SdkNativeApi proxy = lazyProxy;
+        if (proxy == null) {
+            synchronized (DirectSdkNativeApi.class) {
+                if (lazyProxy == null) {
+                    lazyProxy = Native.loadLibrary(registeredPath, SdkNativeApi.class);
+                }
+                proxy = lazyProxy;
+            }
+        }
+        return proxy;
+    }
+
+    // static native methods bound by Native.register; names must match the library symbols
+    private static final class Natives {
+        static native PointerResult CreateDefaultSeed();
+
+        static native PointerResult MnemonicBip39ToSeed(String mnemonics);
+
+        static native PointerResult SeedBip39ToMnemonic(String seed);
+
+        static native PointerResult RecreateAgentIdentity(String resolverAddress, String keyName, String name, String seed);
+
+        static native PointerResult RecreateUserIdentity(String resolverAddress, String keyName, String name, String seed);
+
+        static native PointerResult CreateAgentIdentity(String resolverAddress, String keyName, String name, String seed);
+
+        static native PointerResult CreateUserIdentity(String resolverAddress, String keyName, String name, String seed);
+
+        static native PointerResult CreateTwinDidWithControlDelegation(String resolverAddress,
+                                                                       String agentDid, String agentKeyName,
+                                                                       String agentName, String agentSeed,
+                                                                       String twinKeyName, String twinName);
+
+        static native Pointer UserDelegatesAuthenticationToAgent(String resolverAddress,
+                                                                 String agentDid, String agentKeyName,
+                                                                 String agentName, String agentSeed,
+                                                                 String userDid, String userKeyName,
+                                                                 String userName, String userSeed,
+                                                                 String delegationName);
+
+        static native PointerResult IsAllowedFor(String resolverAddress, String token);
+
+        static native Pointer TwinDelegatesControlToAgent(String resolverAddress,
+                                                          String agentDid, String agentKeyName,
+                                                          String agentName, String agentSeed,
+                                                          String twinDid, String twinKeyName,
+                                                          String twinName, String twinSeed,
+                                                          String delegationName);
+
+        static native PointerResult CreateAgentAuthToken(String agentDid, String agentKeyName, String agentName,
+                                                         String agentSeed, String userDid, String audience,
+                                                         long durationInSeconds);
+
+        static native void FreeUpCString(Pointer pointer);
+    }
+}
@@ -0,0 +1,127 @@
+package smartrics.iotics.identity.jna;
+
+import smartrics.iotics.identity.go.StringResult;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Base class of the {@link SdkApi} decorators: every operation is forwarded to the delegate through
+ * {@link #call(SdkApiMethod, Supplier)}, where subclasses add their behaviour.
+ */
+public abstract class ForwardingSdkApi implements SdkApi {
+
+    protected final SdkApi delegate;
+
+    protected ForwardingSdkApi(SdkApi delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    /**
+     * Runs an operation of the delegate.
+     *
+     * @param method the operation
+     * @param call   the call to the delegate
+     * @param <T>    the result type, {@link StringResult} or, for the delegations, an error string
+     * @return the operation result
+     */
+    protected abstract <T> T call(SdkApiMethod method, Supplier<T> call);
+
+    /**
+     * @param method  the operation
+     * @param message the error message
+     * @param <T>     the result type of the operation
+     * @return an error result of the type returned by the operation, for decorators failing a call without running it
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T> T errorResult(SdkApiMethod method, String message) {
+        if (method == SdkApiMethod.UserDelegatesAuthenticationToAgent || method == SdkApiMethod.TwinDelegatesControlToAgent) {
+            return (T) message;
+        }
+        return (T) new StringResult(null, message);
+    }
+
+    @Override
+    public StringResult CreateDefaultSeed() {
+        return call(SdkApiMethod.CreateDefaultSeed, delegate::CreateDefaultSeed);
+    }
+
+    @Override
+    public StringResult MnemonicBip39ToSeed(String mnemonics) {
+        return call(SdkApiMethod.MnemonicBip39ToSeed, () -> delegate.MnemonicBip39ToSeed(mnemonics));
+    }
+
+    @Override
+    public StringResult SeedBip39ToMnemonic(String seed) {
+        return call(SdkApiMethod.SeedBip39ToMnemonic, () -> delegate.SeedBip39ToMnemonic(seed));
+    }
+
+    @Override
+    public StringResult RecreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return call(SdkApiMethod.RecreateAgentIdentity, () -> delegate.RecreateAgentIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult RecreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return call(SdkApiMethod.RecreateTwinIdentity, () -> delegate.RecreateTwinIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult RecreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return call(SdkApiMethod.RecreateUserIdentity, () -> delegate.RecreateUserIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return call(SdkApiMethod.CreateAgentIdentity, () -> delegate.CreateAgentIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return call(SdkApiMethod.CreateTwinIdentity, () -> delegate.CreateTwinIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return call(SdkApiMethod.CreateUserIdentity, () -> delegate.CreateUserIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateTwinDidWithControlDelegation(String resolverAddress, String agentDid, String agentKeyName,
+                                                           String agentName, String agentSeed, String twinKeyName,
+                                                           String twinName) {
+        return call(SdkApiMethod.CreateTwinDidWithControlDelegation, () -> delegate.CreateTwinDidWithControlDelegation(
+                resolverAddress, agentDid, agentKeyName, agentName, agentSeed, twinKeyName, twinName));
+    }
+
+    @Override
+    public String UserDelegatesAuthenticationToAgent(String resolverAddress, String agentDid, String agentKeyName,
+                                                     String agentName, String agentSeed, String userDid,
+                                                     String userKeyName, String userName, String userSeed,
+                                                     String delegationName) {
+        return call(SdkApiMethod.UserDelegatesAuthenticationToAgent, () -> delegate.UserDelegatesAuthenticationToAgent(
+                resolverAddress, agentDid, agentKeyName, agentName, agentSeed,
+                userDid, userKeyName, userName, userSeed, delegationName));
+    }
+
+    @Override
+    public StringResult IsAllowedFor(String resolverAddress, String token) {
+        return call(SdkApiMethod.IsAllowedFor, () -> delegate.IsAllowedFor(resolverAddress, token));
+    }
+
+    @Override
+    public String TwinDelegatesControlToAgent(String resolverAddress, String agentDid, String agentKeyName,
+                                              String agentName, String agentSeed, String twinDid, String twinKeyName,
+                                              String twinName, String twinSeed, String delegationName) {
+        return call(SdkApiMethod.TwinDelegatesControlToAgent, () -> delegate.TwinDelegatesControlToAgent(
+                resolverAddress, agentDid, agentKeyName, agentName, agentSeed,
+                twinDid, twinKeyName, twinName, twinSeed, delegationName));
+    }
+
+    @Override
+    public StringResult CreateAgentAuthToken(String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                             String userDid, String audience, long durationInSeconds) {
+        return call(SdkApiMethod.CreateAgentAuthToken, () -> delegate.CreateAgentAuthToken(
+                agentDid, agentKeyName, agentName, agentSeed, userDid, audience, durationInSeconds));
+    }
+}
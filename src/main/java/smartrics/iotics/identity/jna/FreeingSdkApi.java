@@ -0,0 +1,138 @@
+package smartrics.iotics.identity.jna;
+
+import com.sun.jna.Pointer;
+import smartrics.iotics.identity.go.PointerResult;
+import smartrics.iotics.identity.go.StringResult;
+
+import java.util.Objects;
+
+/**
+ * {@link SdkApi} over the raw library interface. The C strings returned by each call are decoded into java strings
+ * and immediately released via <code>FreeUpCString</code>, so that native memory doesn't grow with the number of calls.
+ */
+public class FreeingSdkApi implements SdkApi {
+    private static final String ENCODING = "UTF-8";
+
+    private final SdkNativeApi lib;
+
+    public FreeingSdkApi(SdkNativeApi lib) {
+        this.lib = Objects.requireNonNull(lib);
+    }
+
+    @Override
+    public StringResult CreateDefaultSeed() {
+        return take(lib.CreateDefaultSeed());
+    }
+
+    @Override
+    public StringResult MnemonicBip39ToSeed(String mnemonics) {
+        return take(lib.MnemonicBip39ToSeed(mnemonics));
+    }
+
+    @Override
+    public StringResult SeedBip39ToMnemonic(String seed) {
+        return take(lib.SeedBip39ToMnemonic(seed));
+    }
+
+    @Override
+    public StringResult RecreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return take(lib.RecreateAgentIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult RecreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return take(lib.RecreateTwinIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult RecreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return take(lib.RecreateUserIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateAgentIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return take(lib.CreateAgentIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateTwinIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return take(lib.CreateTwinIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateUserIdentity(String resolverAddress, String keyName, String name, String seed) {
+        return take(lib.CreateUserIdentity(resolverAddress, keyName, name, seed));
+    }
+
+    @Override
+    public StringResult CreateTwinDidWithControlDelegation(String resolverAddress, String agentDid, String agentKeyName,
+                                                           String agentName, String agentSeed,
+                                                           String twinKeyName, String twinName) {
+        return take(lib.CreateTwinDidWithControlDelegation(resolverAddress, agentDid, agentKeyName, agentName, agentSeed,
+                twinKeyName, twinName));
+    }
+
+    @Override
+    public String UserDelegatesAuthenticationToAgent(String resolverAddress,
+                                                     String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                                     String userDid, String userKeyName, String userName, String userSeed,
+                                                     String delegationName) {
+        return take(lib.UserDelegatesAuthenticationToAgent(resolverAddress,
+                agentDid, agentKeyName, agentName, agentSeed,
+                userDid, userKeyName, userName, userSeed,
+                delegationName));
+    }
+
+    @Override
+    public StringResult IsAllowedFor(String resolverAddress, String token) {
+        return take(lib.IsAllowedFor(resolverAddress, token));
+    }
+
+    @Override
+    public String TwinDelegatesControlToAgent(String resolverAddress,
+                                              String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                              String twinDid, String twinKeyName, String twinName, String twinSeed,
+                                              String delegationName) {
+        return take(lib.TwinDelegatesControlToAgent(resolverAddress,
+                agentDid, agentKeyName, agentName, agentSeed,
+                twinDid, twinKeyName, twinName, twinSeed,
+                delegationName));
+    }
+
+    @Override
+    public StringResult CreateAgentAuthToken(String agentDid, String agentKeyName, String agentName, String agentSeed,
+                                             String userDid, String audience, long durationInSeconds) {
+        return take(lib.CreateAgentAuthToken(agentDid, agentKeyName, agentName, agentSeed, userDid, audience,
+                durationInSeconds));
+    }
+
+    private StringResult take(PointerResult result) {
+        if (result == null) {
+            return new StringResult(null, "no result returned by the library");
+        }
+        try {
+            return new StringResult(decode(result.value), decode(result.err));
+        } finally {
+            free(result.value);
+            free(result.err);
+        }
+    }
+
+    private String take(Pointer pointer) {
+        try {
+            return decode(pointer);
+        } finally {
+            free(pointer);
+        }
+    }
+
+    private static String decode(Pointer pointer) {
+        return pointer == null ? null : pointer.getString(0, ENCODING);
+    }
+
+    private void free(Pointer pointer) {
+        if (pointer != null) {
+            lib.FreeUpCString(pointer);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package smartrics.iotics.identity.jna;
+
+import smartrics.iotics.identity.go.StringResult;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * {@link SdkApi} decorator measuring every operation: it reports to the given {@link SdkApiMetrics} the start and
+ * the completion of each call, with its duration and whether it failed. A call fails when it throws, when its
+ * {@link StringResult} has an error, or, for the delegation operations, when it returns a non null error string.
+ */
+public class InstrumentedSdkApi extends ForwardingSdkApi {
+
+    private final SdkApiMetrics metrics;
+
+    public InstrumentedSdkApi(SdkApi delegate, SdkApiMetrics metrics) {
+        super(delegate);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    public SdkApiMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    protected <T> T call(SdkApiMethod method, Supplier<T> call) {
+        metrics.callStarted(method);
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            T result = call.get();
+            error = isError(result);
+            return result;
+        } finally {
+            metrics.callCompleted(method, System.nanoTime() - start, error);
+        }
+    }
+
+    private static boolean isError(Object result) {
+        if (result instanceof StringResult r) {
+            return r.err != null;
+        }
+        return result != null;
+    }
+}
@@ -6,10 +6,12 @@ import java.io.File;
 
 
 /**
- * Native library loader
+ * Native library loader. The library is accessed via {@link FreeingSdkApi} so that the C strings it returns are
+ * released after being copied into java strings.
+ * Each instance loads the library again; use {@link SdkApiRegistry} to share one load across the process.
  */
 public class JnaSdkApiInitialiser implements SdkApiInitialiser {
-    private static final String LIB_NAME;
+    static final String LIB_NAME;
 
     static {
         String osName = System.getProperty("os.name").toLowerCase();
@@ -25,9 +27,9 @@ public class JnaSdkApiInitialiser implements SdkApiInitialiser {
 
     }
 
-    private static String LIB_PATH = new File("./lib/" + LIB_NAME).getAbsolutePath();
+    static final String LIB_PATH = new File("./lib/" + LIB_NAME).getAbsolutePath();
 
-    private SdkApi idProxy;
+    private final SdkApi idProxy;
 
     /**
      * Initialiser with path to the native set to LIB_PATH
@@ -36,16 +38,19 @@ public class JnaSdkApiInitialiser implements SdkApiInitialiser {
         String path = System.getProperty("ioticsIdentityLibraryFile");
         if (path != null) {
             try {
-                this.idProxy = Native.loadLibrary(path, SdkApi.class);
+                this.idProxy = load(path);
             } catch (UnsatisfiedLinkError e) {
                 throw new IllegalStateException("unable to load library from path supplied in -DioticsIdentityLibraryFile");
             }
+            return;
         }
+        SdkApi api;
         try {
-            this.idProxy = Native.loadLibrary(LIB_NAME, SdkApi.class);
+            api = load(LIB_NAME);
         } catch (UnsatisfiedLinkError e) {
-            this.idProxy = Native.loadLibrary(LIB_PATH, SdkApi.class);
+            api = load(LIB_PATH);
         }
+        this.idProxy = api;
     }
 
     /**
@@ -54,12 +59,16 @@ public class JnaSdkApiInitialiser implements SdkApiInitialiser {
      * @param libPath the library path
      */
     public JnaSdkApiInitialiser(String libPath) {
-        this.idProxy = Native.loadLibrary(libPath, SdkApi.class);
+        this.idProxy = load(libPath);
+    }
+
+    private static SdkApi load(String path) {
+        return new FreeingSdkApi(Native.loadLibrary(path, SdkNativeApi.class));
     }
 
     /**
      * An instance of the library interface is created at construction and set as a reference in this object.
-     * Not thread safe.
+     * Thread safe.
      *
      * @return the library interface
      */
@@ -4,7 +4,8 @@ import com.sun.jna.Library;
 import smartrics.iotics.identity.go.StringResult;
 
 /**
- * Library interface to access the JNI functions
+ * Library interface to access the JNI functions, with results decoded into java strings.
+ * See {@link SdkNativeApi} for the raw binding.
  */
 public interface SdkApi extends Library {
 
@@ -2,4 +2,16 @@ package smartrics.iotics.identity.jna;
 
 public interface SdkApiInitialiser {
     SdkApi get();
+
+    /**
+     * @param metrics the receiver of the measurements
+     * @return the api, wrapped in an {@link InstrumentedSdkApi}; the plain api if the metrics are
+     * {@link SdkApiMetrics#NONE}
+     */
+    default SdkApi instrumented(SdkApiMetrics metrics) {
+        if (metrics == null || metrics == SdkApiMetrics.NONE) {
+            return get();
+        }
+        return new InstrumentedSdkApi(get(), metrics);
+    }
 }
@@ -0,0 +1,45 @@
+package smartrics.iotics.identity.jna;
+
+/**
+ * The operations of {@link SdkApi}, with the kind of work each does.
+ */
+public enum SdkApiMethod {
+    CreateDefaultSeed(Category.CRYPTO),
+    MnemonicBip39ToSeed(Category.CRYPTO),
+    SeedBip39ToMnemonic(Category.CRYPTO),
+    RecreateAgentIdentity(Category.RESOLVER),
+    RecreateTwinIdentity(Category.RESOLVER),
+    RecreateUserIdentity(Category.RESOLVER),
+    CreateAgentIdentity(Category.RESOLVER),
+    CreateTwinIdentity(Category.RESOLVER),
+    CreateUserIdentity(Category.RESOLVER),
+    CreateTwinDidWithControlDelegation(Category.RESOLVER),
+    UserDelegatesAuthenticationToAgent(Category.RESOLVER),
+    IsAllowedFor(Category.RESOLVER),
+    TwinDelegatesControlToAgent(Category.RESOLVER),
+    CreateAgentAuthToken(Category.CRYPTO);
+
+    /**
+     * The kind of work of an operation.
+     */
+    public enum Category {
+        /**
+         * CPU bound operations, never leaving the process.
+         */
+        CRYPTO,
+        /**
+         * Operations reading or writing DID documents on the resolver.
+         */
+        RESOLVER
+    }
+
+    private final Category category;
+
+    SdkApiMethod(Category category) {
+        this.category = category;
+    }
+
+    public Category category() {
+        return category;
+    }
+}
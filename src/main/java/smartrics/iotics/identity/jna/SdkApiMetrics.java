@@ -0,0 +1,34 @@
+package smartrics.iotics.identity.jna;
+
+/**
+ * Receiver of the measurements taken by {@link InstrumentedSdkApi}. Implementations must be thread safe and cheap:
+ * they run on the calling thread of every operation.
+ */
+public interface SdkApiMetrics {
+
+    /**
+     * Metrics discarding all measurements. {@link SdkApiInitialiser#instrumented(SdkApiMetrics)} doesn't instrument
+     * the api at all when given this instance.
+     */
+    SdkApiMetrics NONE = new SdkApiMetrics() {
+        @Override
+        public void callStarted(SdkApiMethod method) {
+        }
+
+        @Override
+        public void callCompleted(SdkApiMethod method, long durationNanos, boolean error) {
+        }
+    };
+
+    /**
+     * @param method the operation about to be called
+     */
+    void callStarted(SdkApiMethod method);
+
+    /**
+     * @param method        the operation called
+     * @param durationNanos the call duration, in nanoseconds
+     * @param error         whether the operation returned an error or threw
+     */
+    void callCompleted(SdkApiMethod method, long durationNanos, boolean error);
+}
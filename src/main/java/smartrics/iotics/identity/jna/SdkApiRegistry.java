@@ -0,0 +1,107 @@
+package smartrics.iotics.identity.jna;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Process wide registry of the loaded identity libraries, so that the many managers of a process share one
+ * {@link SdkApi} per library instead of loading it each time. Each library is loaded, via
+ * {@link JnaSdkApiInitialiser}, exactly once per path on first request; concurrent first requests wait for that load.
+ * Paths are made absolute and normalised, so that different forms of the same path share one library. Failed loads aren't remembered and are attempted again on the next request. Thread safe.
+ */
+public final class SdkApiRegistry {
+
+    /**
+     * The registry key of the library found as per {@link JnaSdkApiInitialiser#JnaSdkApiInitialiser()}.
+     */
+    public static final String DEFAULT = "default";
+
+    private static final ConcurrentMap<String, Loaded> LIBRARIES = new ConcurrentHashMap<>();
+    private static final Object DEFAULT_LOCK = new Object();
+    private static volatile Loaded defaultLibrary;
+
+    private SdkApiRegistry() {
+    }
+
+    /**
+     * @return the api over the library found in the default locations
+     */
+    public static SdkApi get() {
+        Loaded loaded = defaultLibrary;
+        if (loaded == null) {
+            synchronized (DEFAULT_LOCK) {
+                loaded = defaultLibrary;
+                if (loaded == null) {
+                    loaded = load(DEFAULT, () -> new JnaSdkApiInitialiser().get());
+                    defaultLibrary = loaded;
+                }
+            }
+        }
+        return loaded.api();
+    }
+
+    /**
+     * @param libPath the library path
+     * @return the api over the library at this path
+     */
+    public static SdkApi get(String libPath) {
+        String key = Path.of(Objects.requireNonNull(libPath)).toAbsolutePath().normalize().toString();
+        Loaded loaded = LIBRARIES.get(key);
+        if (loaded != null) {
+            return loaded.api();
+        }
+        return LIBRARIES.computeIfAbsent(key, k -> load(k, () -> new JnaSdkApiInitialiser(k).get())).api();
+    }
+
+    /**
+     * @return an initialiser handing out the shared api over the library found in the default locations
+     */
+    public static SdkApiInitialiser initialiser() {
+        return SdkApiRegistry::get;
+    }
+
+    /**
+     * @param libPath the library path
+     * @return an initialiser handing out the shared api over the library at this path
+     */
+    public static SdkApiInitialiser initialiser(String libPath) {
+        return () -> get(libPath);
+    }
+
+    /**
+     * @return the libraries loaded so far, keyed by absolute path or {@link #DEFAULT}
+     */
+    public static Map<String, Loaded> loaded() {
+        Map<String, Loaded> loaded = new HashMap<>(LIBRARIES);
+        Loaded defaultLoaded = defaultLibrary;
+        if (defaultLoaded != null) {
+            loaded.put(DEFAULT, defaultLoaded);
+        }
+        return Map.copyOf(loaded);
+    }
+
+    private static Loaded load(String key, Supplier<SdkApi> initialiser) {
+        Instant at = Instant.now();
+        long start = System.nanoTime();
+        SdkApi api = initialiser.get();
+        return new Loaded(key, api, at, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * A loaded library.
+     *
+     * @param key      the absolute library path, or {@link #DEFAULT}
+     * @param api      the api over the library
+     * @param loadedAt the time loading started
+     * @param loadTime how long loading took
+     */
+    public record Loaded(String key, SdkApi api, Instant loadedAt, Duration loadTime) {
+    }
+}
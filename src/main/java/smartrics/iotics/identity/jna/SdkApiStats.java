@@ -0,0 +1,157 @@
+package smartrics.iotics.identity.jna;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * In memory {@link SdkApiMetrics}: per operation call and error counts, in flight gauge and latency histogram.
+ * Readable programmatically via {@link #snapshot()} and through JMX once {@link #register(String) registered}.
+ */
+public class SdkApiStats implements SdkApiMetrics, SdkApiStatsMXBean {
+
+    public static final String JMX_DOMAIN = "smartrics.iotics.identity";
+
+    private final Map<SdkApiMethod, MethodMetrics> metrics = new EnumMap<>(SdkApiMethod.class);
+
+    public SdkApiStats() {
+        for (SdkApiMethod m : SdkApiMethod.values()) {
+            metrics.put(m, new MethodMetrics());
+        }
+    }
+
+    @Override
+    public void callStarted(SdkApiMethod method) {
+        metrics.get(method).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void callCompleted(SdkApiMethod method, long durationNanos, boolean error) {
+        MethodMetrics m = metrics.get(method);
+        m.inFlight.decrementAndGet();
+        m.latency.record(durationNanos);
+        if (error) {
+            m.errors.increment();
+        }
+    }
+
+    /**
+     * @param method the operation
+     * @return the current statistics of the operation
+     */
+    public MethodStats snapshot(SdkApiMethod method) {
+        MethodMetrics m = metrics.get(method);
+        return new MethodStats(method, m.latency.count(), m.errors.sum(), m.inFlight.get(), m.latency.mean(),
+                m.latency.percentile(0.5), m.latency.percentile(0.9), m.latency.percentile(0.99), m.latency.max());
+    }
+
+    /**
+     * @return the current statistics of the operations called at least once
+     */
+    public Map<SdkApiMethod, MethodStats> snapshot() {
+        Map<SdkApiMethod, MethodStats> s = new EnumMap<>(SdkApiMethod.class);
+        for (SdkApiMethod m : SdkApiMethod.values()) {
+            MethodMetrics mm = metrics.get(m);
+            if (mm.latency.count() > 0 || mm.inFlight.get() > 0) {
+                s.put(m, snapshot(m));
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Registers these statistics in the platform MBean server.
+     *
+     * @param name the value of the <code>name</code> key of the object name, to tell apart many instances
+     * @return the object name, <code>smartrics.iotics.identity:type=SdkApi,name=&lt;name&gt;</code>
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=SdkApi,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("unable to register SdkApi stats as " + name, e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        return view(MethodStats::calls);
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        return view(MethodStats::errors);
+    }
+
+    @Override
+    public Map<String, Long> getInFlight() {
+        return view(MethodStats::inFlight);
+    }
+
+    @Override
+    public Map<String, Long> getMeanMicros() {
+        return view(s -> s.meanNanos() / 1000);
+    }
+
+    @Override
+    public Map<String, Long> getP50Micros() {
+        return view(s -> s.p50Nanos() / 1000);
+    }
+
+    @Override
+    public Map<String, Long> getP99Micros() {
+        return view(s -> s.p99Nanos() / 1000);
+    }
+
+    @Override
+    public Map<String, Long> getMaxMicros() {
+        return view(s -> s.maxNanos() / 1000);
+    }
+
+    @Override
+    public void reset() {
+        for (MethodMetrics m : metrics.values()) {
+            m.latency.reset();
+            m.errors.reset();
+        }
+    }
+
+    private Map<String, Long> view(ToLongFunction<MethodStats> f) {
+        Map<String, Long> view = new LinkedHashMap<>();
+        snapshot().forEach((m, s) -> view.put(m.name(), f.applyAsLong(s)));
+        return view;
+    }
+
+    /**
+     * Statistics of one operation.
+     *
+     * @param method    the operation
+     * @param calls     the number of completed calls
+     * @param errors    the number of calls returning an error or throwing
+     * @param inFlight  the number of calls in progress
+     * @param meanNanos the mean call duration
+     * @param p50Nanos  the median call duration
+     * @param p90Nanos  the 90th percentile of the call duration
+     * @param p99Nanos  the 99th percentile of the call duration
+     * @param maxNanos  the longest call duration
+     */
+    public record MethodStats(SdkApiMethod method, long calls, long errors, long inFlight, long meanNanos,
+                              long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+    }
+
+    private static final class MethodMetrics {
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
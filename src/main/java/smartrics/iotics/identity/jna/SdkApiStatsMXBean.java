@@ -0,0 +1,25 @@
+package smartrics.iotics.identity.jna;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link SdkApiStats}. Maps are keyed by operation name and only hold the operations called so far.
+ */
+public interface SdkApiStatsMXBean {
+
+    Map<String, Long> getCalls();
+
+    Map<String, Long> getErrors();
+
+    Map<String, Long> getInFlight();
+
+    Map<String, Long> getMeanMicros();
+
+    Map<String, Long> getP50Micros();
+
+    Map<String, Long> getP99Micros();
+
+    Map<String, Long> getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,112 @@
+package smartrics.iotics.identity.jna;
+
+import com.sun.jna.Library;
+import com.sun.jna.Pointer;
+import smartrics.iotics.identity.go.PointerResult;
+
+/**
+ * Raw library interface. Every returned C string is allocated by the library and must be released with
+ * {@link #FreeUpCString(Pointer)}; use {@link FreeingSdkApi} to access it via {@link SdkApi}.
+ */
+public interface SdkNativeApi extends Library {
+
+    PointerResult CreateDefaultSeed();
+
+    PointerResult MnemonicBip39ToSeed(String mnemonics);
+
+    PointerResult SeedBip39ToMnemonic(String seed);
+
+    PointerResult RecreateAgentIdentity(
+            String resolverAddress,
+            String keyName,
+            String name,
+            String seed);
+
+    PointerResult RecreateTwinIdentity(
+            String resolverAddress,
+            String keyName,
+            String name,
+            String seed);
+
+    PointerResult RecreateUserIdentity(
+            String resolverAddress,
+            String keyName,
+            String name,
+            String seed);
+
+    PointerResult CreateAgentIdentity(
+            String resolverAddress,
+            String keyName,
+            String name,
+            String seed);
+
+    PointerResult CreateTwinIdentity(
+            String resolverAddress,
+            String keyName,
+            String name,
+            String seed);
+
+    PointerResult CreateUserIdentity(
+            String resolverAddress,
+            String keyName,
+            String name,
+            String seed);
+
+    PointerResult CreateTwinDidWithControlDelegation(
+            String resolverAddress,
+            String agentDid,
+            String agentKeyName,
+            String agentName,
+            String agentSeed,
+            String twinKeyName,
+            String twinName);
+
+    Pointer UserDelegatesAuthenticationToAgent(
+            String resolverAddress,
+
+            String agentDid,
+            String agentKeyName,
+            String agentName,
+            String agentSeed,
+
+            String userDid,
+            String userKeyName,
+            String userName,
+            String userSeed,
+
+            String delegationName);
+
+    PointerResult IsAllowedFor(
+            String resolverAddress,
+            String token);
+
+    Pointer TwinDelegatesControlToAgent(
+            String resolverAddress,
+
+            String agentDid,
+            String agentKeyName,
+            String agentName,
+            String agentSeed,
+
+            String twinDid,
+            String twinKeyName,
+            String twinName,
+            String twinSeed,
+
+            String delegationName);
+
+    PointerResult CreateAgentAuthToken(
+            String agentDid,
+            String agentKeyName,
+            String agentName,
+            String agentSeed,
+
+            String userDid,
+
+            String audience,
+
+            long durationInSeconds);
+
+    void FreeUpCString(Pointer pointer);
+
+}
@@ -0,0 +1,84 @@
+package smartrics.iotics.identity.resolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Discovers many DIDs via {@link ResolverClient#discoverAsync(String)} with a cap on the lookups in flight.
+ * If the caller is interrupted, the lookups in flight are cancelled and those not started are skipped; both are
+ * reported as interrupted.
+ */
+final class BatchDiscovery {
+
+    private static final String CANCELLED = "discover error: cancelled";
+
+    private BatchDiscovery() {
+    }
+
+    static Map<String, ResolverClient.Result> discoverAll(ResolverClient client, Collection<String> dids, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("max in flight must be positive: " + maxInFlight);
+        }
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(dids));
+        Map<String, ResolverClient.Result> results = new ConcurrentHashMap<>();
+        List<CompletableFuture<ResolverClient.Result>> lookups = new ArrayList<>(distinct.size());
+        List<CompletableFuture<?>> pending = new ArrayList<>(distinct.size());
+        Semaphore permits = new Semaphore(maxInFlight);
+        boolean interrupted = false;
+        for (String did : distinct) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                // cancelling the source futures lets the client abort its calls and release their permits
+                lookups.forEach(f -> f.cancel(true));
+                break;
+            }
+            CompletableFuture<ResolverClient.Result> lookup;
+            try {
+                lookup = client.discoverAsync(did);
+            } catch (RuntimeException e) {
+                lookup = CompletableFuture.failedFuture(e);
+            }
+            lookups.add(lookup);
+            pending.add(lookup.whenComplete((result, error) -> {
+                permits.release();
+                results.put(did, error != null ? errorResult(error)
+                        : result != null ? result
+                        : new ResolverClient.Result("discover error: no result", "application/text", true));
+            }));
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException | CancellationException e) {
+            // failures are recorded per DID
+        }
+        Map<String, ResolverClient.Result> ordered = new LinkedHashMap<>();
+        for (String did : distinct) {
+            ResolverClient.Result r = results.get(did);
+            if (r == null || (interrupted && r.isErr() && r.content().equals(CANCELLED))) {
+                r = new ResolverClient.Result("discover interrupted", "application/text", true);
+            }
+            ordered.put(did, r);
+        }
+        return ordered;
+    }
+
+    private static ResolverClient.Result errorResult(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            return new ResolverClient.Result(CANCELLED, "application/text", true);
+        }
+        return new ResolverClient.Result("discover error: " + cause.getMessage(), "application/text", true);
+    }
+}
@@ -0,0 +1,161 @@
+package smartrics.iotics.identity.resolver;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolver client caching the successful results of a delegate client.
+ * Entries expire after a time to live and the least recently used ones are evicted beyond a maximum number of
+ * entries or total weight. Error results are not cached.
+ */
+public class CachingResolverClient implements ResolverClient {
+
+    private final ResolverClient delegate;
+    private final Cache<String, Result> cache;
+
+    private CachingResolverClient(ResolverClient delegate, Cache<String, Result> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Result discover(String did) throws IOException {
+        Result result = cache.getIfPresent(did);
+        if (result != null) {
+            return result;
+        }
+        result = delegate.discover(did);
+        if (result != null && !result.isErr()) {
+            cache.put(did, result);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Result> discoverAsync(String did) {
+        Result cached = did == null ? null : cache.getIfPresent(did);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return delegate.discoverAsync(did).thenApply(result -> {
+            if (result != null && !result.isErr()) {
+                cache.put(did, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Discards the cached result for this DID, if any.
+     *
+     * @param did the DID
+     */
+    public void invalidate(String did) {
+        cache.invalidate(did);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the cache statistics
+     */
+    public Stats stats() {
+        CacheStats s = cache.stats();
+        return new Stats(s.hitCount(), s.missCount(), s.evictionCount(), cache.size());
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hits      the number of lookups served from the cache
+     * @param misses    the number of lookups delegated
+     * @param evictions the number of entries evicted because expired or beyond the size bounds
+     * @param size      the current number of entries
+     */
+    public record Stats(long hits, long misses, long evictions, long size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+    }
+
+    public static final class Builder {
+        private ResolverClient delegate;
+        private Duration ttl;
+        private long maximumEntries;
+        private long maximumWeight;
+        private Ticker ticker;
+
+        private Builder() {
+            ttl = Duration.ofMinutes(5);
+            maximumEntries = 10_000;
+            maximumWeight = -1;
+            ticker = Ticker.systemTicker();
+        }
+
+        public static Builder aCachingResolverClient() {
+            return new Builder();
+        }
+
+        public Builder withDelegate(ResolverClient delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        public Builder withTtl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * @param maximumEntries the maximum number of cached documents; ignored if a maximum weight is set
+         * @return this builder
+         */
+        public Builder withMaximumEntries(long maximumEntries) {
+            this.maximumEntries = maximumEntries;
+            return this;
+        }
+
+        /**
+         * @param maximumWeight the maximum total length, in chars, of the cached DIDs and documents; the bound is
+         *                      enforced per cache segment, so eviction may start before the total is reached
+         * @return this builder
+         */
+        public Builder withMaximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        public Builder withTicker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public CachingResolverClient build() {
+            Objects.requireNonNull(delegate, "delegate resolver client");
+            CacheBuilder<Object, Object> b = CacheBuilder.newBuilder()
+                    .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+                    .ticker(ticker)
+                    .recordStats();
+            Cache<String, Result> cache;
+            if (maximumWeight >= 0) {
+                cache = b.maximumWeight(maximumWeight)
+                        .<String, Result>weigher((did, r) -> did.length() + r.content().length())
+                        .build();
+            } else {
+                cache = b.maximumSize(maximumEntries).build();
+            }
+            return new CachingResolverClient(delegate, cache);
+        }
+    }
+}
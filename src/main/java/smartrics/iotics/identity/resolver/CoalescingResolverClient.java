@@ -0,0 +1,156 @@
+package smartrics.iotics.identity.resolver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolver client collapsing concurrent lookups of the same DID into a single call to the delegate.
+ * The first caller performs the lookup; callers arriving while it's in flight wait for and share its result,
+ * or its failure. Combine with {@link CachingResolverClient} as
+ * <code>caching(coalescing(http))</code> so that cache misses on hot DIDs translate to one request.
+ */
+public class CoalescingResolverClient implements ResolverClient {
+
+    private final ResolverClient delegate;
+    private final Duration waitTimeout;
+    private final ConcurrentMap<String, CompletableFuture<Result>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param delegate the resolver client performing the lookups
+     */
+    public CoalescingResolverClient(ResolverClient delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * @param delegate    the resolver client performing the lookups
+     * @param waitTimeout the maximum time a caller waits for a lookup started by another caller; null for no limit
+     */
+    public CoalescingResolverClient(ResolverClient delegate, Duration waitTimeout) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    public Result discover(String did) throws IOException {
+        if (isBlank(did)) {
+            // not coalesced: the delegate rejects it as it sees fit
+            calls.increment();
+            return delegate.discover(did);
+        }
+        CompletableFuture<Result> mine = new CompletableFuture<>();
+        CompletableFuture<Result> existing = inFlight.putIfAbsent(did, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(did, existing);
+        }
+        calls.increment();
+        try {
+            Result result = delegate.discover(did);
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(did, mine);
+        }
+    }
+
+    /**
+     * Non blocking variant, collapsing onto the same in flight lookups as {@link #discover(String)}.
+     * Each caller gets its own future: cancelling it detaches that caller only and doesn't cancel the shared lookup.
+     *
+     * @param did the DID to discover
+     * @return a future completing with the shared result
+     */
+    @Override
+    public CompletableFuture<Result> discoverAsync(String did) {
+        if (isBlank(did)) {
+            calls.increment();
+            return delegate.discoverAsync(did);
+        }
+        CompletableFuture<Result> mine = new CompletableFuture<>();
+        CompletableFuture<Result> existing = inFlight.putIfAbsent(did, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+        calls.increment();
+        CompletableFuture<Result> lookup;
+        try {
+            lookup = delegate.discoverAsync(did);
+        } catch (RuntimeException e) {
+            lookup = CompletableFuture.failedFuture(e);
+        }
+        lookup.whenComplete((result, error) -> {
+            inFlight.remove(did, mine);
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                mine.complete(result);
+            }
+        });
+        return mine.copy();
+    }
+
+    /**
+     * @return the lookup statistics
+     */
+    public Stats stats() {
+        return new Stats(calls.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    private Result await(String did, CompletableFuture<Result> future) throws IOException {
+        try {
+            if (waitTimeout == null) {
+                return future.get();
+            }
+            return future.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for discover of " + did);
+        } catch (TimeoutException e) {
+            throw new InterruptedIOException("timed out waiting for discover of " + did);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("discover of " + did + " failed", cause);
+        }
+    }
+
+    /**
+     * Lookup statistics.
+     *
+     * @param calls     the number of lookups performed by the delegate
+     * @param coalesced the number of lookups served by waiting on another caller's lookup
+     * @param inFlight  the number of lookups currently in flight
+     */
+    public record Stats(long calls, long coalesced, int inFlight) {
+    }
+
+    private static boolean isBlank(String did) {
+        return did == null || did.isBlank();
+    }
+}
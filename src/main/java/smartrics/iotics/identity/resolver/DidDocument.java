@@ -0,0 +1,215 @@
+package smartrics.iotics.identity.resolver;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The parts of a DID document, as returned by {@link ResolverClient#discover(String)}, needed to verify tokens
+ * locally: the public keys, the authentication keys and the delegations.
+ */
+public final class DidDocument {
+
+    private final String id;
+    private final boolean revoked;
+    private final List<PublicKey> publicKeys;
+    private final List<PublicKey> authenticationKeys;
+    private final List<Delegation> delegateControl;
+    private final List<Delegation> delegateAuthentication;
+
+    public DidDocument(String id, boolean revoked, List<PublicKey> publicKeys, List<PublicKey> authenticationKeys,
+                       List<Delegation> delegateControl, List<Delegation> delegateAuthentication) {
+        this.id = id;
+        this.revoked = revoked;
+        this.publicKeys = List.copyOf(publicKeys);
+        this.authenticationKeys = List.copyOf(authenticationKeys);
+        this.delegateControl = List.copyOf(delegateControl);
+        this.delegateAuthentication = List.copyOf(delegateAuthentication);
+    }
+
+    /**
+     * Parses the content of a successful discover result.
+     *
+     * @param content the resolver result content, a JSON object with the document in the <code>doc</code> field
+     * @return the document
+     * @throws IllegalArgumentException if the content isn't a DID document
+     */
+    public static DidDocument parse(String content) {
+        try {
+            JsonObject root = JsonParser.parseString(content).getAsJsonObject();
+            JsonObject doc = root.has("doc") ? root.getAsJsonObject("doc") : root;
+            String id = doc.get("id").getAsString();
+            return new DidDocument(id, bool(doc, "revoked"),
+                    keys(doc, "publicKey", "publicKeys"),
+                    keys(doc, "authentication", "authenticationKeys"),
+                    delegations(doc, "delegateControl"),
+                    delegations(doc, "delegateAuthentication"));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid DID document", e);
+        }
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public boolean revoked() {
+        return revoked;
+    }
+
+    public List<PublicKey> publicKeys() {
+        return publicKeys;
+    }
+
+    public List<PublicKey> authenticationKeys() {
+        return authenticationKeys;
+    }
+
+    public List<Delegation> delegateControl() {
+        return delegateControl;
+    }
+
+    public List<Delegation> delegateAuthentication() {
+        return delegateAuthentication;
+    }
+
+    /**
+     * Finds a non revoked key by name, among the public keys first and the authentication keys then.
+     *
+     * @param name the key name, with or without the leading <code>#</code>
+     * @return the key, if any
+     */
+    public Optional<PublicKey> findKey(String name) {
+        String keyId = name.startsWith("#") ? name : "#" + name;
+        return find(publicKeys, keyId).or(() -> find(authenticationKeys, keyId));
+    }
+
+    /**
+     * Finds a non revoked key by name among the public keys only, i.e. the keys an identity signs with.
+     *
+     * @param name the key name, with or without the leading <code>#</code>
+     * @return the key, if any
+     */
+    public Optional<PublicKey> findPublicKey(String name) {
+        return find(publicKeys, name.startsWith("#") ? name : "#" + name);
+    }
+
+    /**
+     * Finds a non revoked authentication delegation, with a proof, by name and delegated identity.
+     *
+     * @param name          the delegation name, with or without the leading <code>#</code>
+     * @param controllerDid the DID of the delegated identity
+     * @return the delegation, if any
+     */
+    public Optional<Delegation> findAuthenticationDelegation(String name, String controllerDid) {
+        return findDelegation(delegateAuthentication, name, controllerDid);
+    }
+
+    /**
+     * Finds a non revoked control delegation, with a proof, by name and delegated identity.
+     *
+     * @param name          the delegation name, with or without the leading <code>#</code>
+     * @param controllerDid the DID of the delegated identity
+     * @return the delegation, if any
+     */
+    public Optional<Delegation> findControlDelegation(String name, String controllerDid) {
+        return findDelegation(delegateControl, name, controllerDid);
+    }
+
+    private static Optional<Delegation> findDelegation(List<Delegation> delegations, String name, String controllerDid) {
+        String delegationId = name.startsWith("#") ? name : "#" + name;
+        return delegations.stream()
+                .filter(d -> !d.revoked() && delegationId.equals(d.id())
+                        && controllerDid.equals(d.controllerDid())
+                        && d.proof() != null && !d.proof().isEmpty())
+                .findFirst();
+    }
+
+    private static Optional<PublicKey> find(List<PublicKey> keys, String keyId) {
+        return keys.stream().filter(k -> !k.revoked() && keyId.equals(k.id())).findFirst();
+    }
+
+    private static List<PublicKey> keys(JsonObject doc, String name, String altName) {
+        JsonArray array = array(doc, name, altName);
+        List<PublicKey> keys = new ArrayList<>(array.size());
+        for (JsonElement e : array) {
+            JsonObject o = e.getAsJsonObject();
+            keys.add(new PublicKey(string(o, "id"), string(o, "type"), string(o, "publicKeyBase58"), bool(o, "revoked")));
+        }
+        return keys;
+    }
+
+    private static List<Delegation> delegations(JsonObject doc, String name) {
+        JsonArray array = array(doc, name, name);
+        List<Delegation> delegations = new ArrayList<>(array.size());
+        for (JsonElement e : array) {
+            JsonObject o = e.getAsJsonObject();
+            delegations.add(new Delegation(string(o, "id"), string(o, "controller"), string(o, "proof"),
+                    string(o, "proofType"), bool(o, "revoked")));
+        }
+        return delegations;
+    }
+
+    private static JsonArray array(JsonObject o, String name, String altName) {
+        JsonElement e = o.has(name) ? o.get(name) : o.get(altName);
+        return e == null || e.isJsonNull() ? new JsonArray() : e.getAsJsonArray();
+    }
+
+    private static String string(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        return e == null || e.isJsonNull() ? null : e.getAsString();
+    }
+
+    private static boolean bool(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        return e != null && !e.isJsonNull() && e.getAsBoolean();
+    }
+
+    @Override
+    public String toString() {
+        return "DidDocument{" +
+                "id='" + id + '\'' +
+                ", revoked=" + revoked +
+                ", publicKeys=" + publicKeys.size() +
+                ", delegateAuthentication=" + delegateAuthentication.size() +
+                '}';
+    }
+
+    /**
+     * A key of the document.
+     *
+     * @param id              the key id, the key name prefixed by <code>#</code>
+     * @param type            the key type
+     * @param publicKeyBase58 the base58 encoded secp256k1 public key
+     * @param revoked         whether the key is revoked
+     */
+    public record PublicKey(String id, String type, String publicKeyBase58, boolean revoked) {
+    }
+
+    /**
+     * A delegation granted by the document owner.
+     *
+     * @param id         the delegation id, the delegation name prefixed by <code>#</code>
+     * @param controller the delegated identity, as <code>did#keyName</code>
+     * @param proof      the delegation proof
+     * @param proofType  the delegation proof type
+     * @param revoked    whether the delegation is revoked
+     */
+    public record Delegation(String id, String controller, String proof, String proofType, boolean revoked) {
+        /**
+         * @return the DID part of the controller
+         */
+        public String controllerDid() {
+            if (controller == null) {
+                return null;
+            }
+            int hash = controller.indexOf('#');
+            return hash < 0 ? controller : controller.substring(0, hash);
+        }
+    }
+}
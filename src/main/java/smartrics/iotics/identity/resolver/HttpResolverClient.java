@@ -6,17 +6,32 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
-import java.util.Base64;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Resolver client over HTTP
  */
 public class HttpResolverClient implements ResolverClient {
+    public static final int DEFAULT_MAX_REQUESTS = 64;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 32;
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 16;
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(5);
+
     private final URL base;
     private final OkHttpClient client;
 
+    /**
+     * Client over the http client shared by all the instances created with this constructor, so that they share
+     * connections and dispatcher limits.
+     *
+     * @param base the resolver URL
+     */
     public HttpResolverClient(URL base) {
-        this(base, new OkHttpClient());
+        this(base, SharedClient.INSTANCE);
     }
 
     public HttpResolverClient(URL base, OkHttpClient client) {
@@ -25,11 +40,138 @@ public class HttpResolverClient implements ResolverClient {
     }
 
 
+    /**
+     * Creates an http client tuned for resolver lookups.
+     *
+     * @param maxRequests        the maximum number of requests in flight; more are queued
+     * @param maxRequestsPerHost the maximum number of requests in flight to one host
+     * @param maxIdleConnections the maximum number of idle keep-alive connections kept in the pool
+     * @param keepAlive          how long idle connections are kept in the pool
+     * @return the http client
+     */
+    public static OkHttpClient newHttpClient(int maxRequests, int maxRequestsPerHost,
+                                             int maxIdleConnections, Duration keepAlive) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .build();
+    }
+
     protected OkHttpClient getClient() {
         return this.client;
     }
 
+    /**
+     * @return a snapshot of the connection pool and dispatcher state of the http client
+     */
+    public PoolStats poolStats() {
+        OkHttpClient c = getClient();
+        Dispatcher d = c.dispatcher();
+        ConnectionPool p = c.connectionPool();
+        return new PoolStats(p.connectionCount(), p.idleConnectionCount(),
+                d.runningCallsCount(), d.queuedCallsCount(), d.getMaxRequests(), d.getMaxRequestsPerHost());
+    }
+
+    /**
+     * Consumer of DID documents.
+     */
+    @FunctionalInterface
+    public interface DocumentSink {
+        /**
+         * @param document the UTF-8 encoded JSON DID document; read only and only valid for the duration of the call
+         * @throws IOException if the document can't be consumed
+         */
+        void accept(ByteBuffer document) throws IOException;
+    }
+
+    /**
+     * Connection pool and dispatcher state.
+     *
+     * @param connections        the number of open connections
+     * @param idleConnections    the number of idle connections
+     * @param runningCalls       the number of calls in flight
+     * @param queuedCalls        the number of calls waiting for the dispatcher limits
+     * @param maxRequests        the dispatcher limit on calls in flight
+     * @param maxRequestsPerHost the dispatcher limit on calls in flight to one host
+     */
+    public record PoolStats(int connections, int idleConnections, int runningCalls, int queuedCalls,
+                            int maxRequests, int maxRequestsPerHost) {
+    }
+
+    private static final class SharedClient {
+        private static final OkHttpClient INSTANCE = newHttpClient(DEFAULT_MAX_REQUESTS,
+                DEFAULT_MAX_REQUESTS_PER_HOST, DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE);
+    }
+
     public Result discover(String did) throws IOException {
+        return discover(did, null);
+    }
+
+    /**
+     * Discovers a DID passing its document to a sink, so that it's never turned into a string.
+     * On success the returned result has empty content, on error it's the same as {@link #discover(String)}.
+     *
+     * @param did  the DID to discover
+     * @param sink the sink consuming the document; if null the document is returned as result content
+     * @return the result
+     * @throws IOException if the request fails or the sink throws
+     */
+    public Result discover(String did, DocumentSink sink) throws IOException {
+        Request request = newRequest(did);
+        Call call = getClient().newCall(request);
+        if (call == null) {
+            return new Result("Unable to create the http request", "application/text", true);
+        }
+        return toResult(call.execute(), sink);
+    }
+
+    /**
+     * Non blocking discover: the request is queued on the http client dispatcher rather than executed on the
+     * calling thread. Cancelling the returned future cancels the http call.
+     *
+     * @param did the DID to discover
+     * @return a future completing with the same result as {@link #discover(String)}, or exceptionally with its errors
+     */
+    @Override
+    public CompletableFuture<Result> discoverAsync(String did) {
+        Request request;
+        try {
+            request = newRequest(did);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Call call = getClient().newCall(request);
+        if (call == null) {
+            return CompletableFuture.completedFuture(new Result("Unable to create the http request", "application/text", true));
+        }
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    future.complete(toResult(response, null));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    private Request newRequest(String did) {
         if(did == null || did.isBlank()) {
             throw new IllegalArgumentException("invalid input string");
         }
@@ -39,18 +181,14 @@ public class HttpResolverClient implements ResolverClient {
         } catch (Exception e) {
             throw new IllegalArgumentException("invalid input did");
         }
-        Request request = new Request.Builder()
+        return new Request.Builder()
                 .url(url)
                 .get()
                 .build();
+    }
 
-        Response response = null;
+    private static Result toResult(Response response, DocumentSink sink) throws IOException {
         try {
-            Call call = getClient().newCall(request);
-            if(call == null) {
-                return new Result("Unable to create the http request", "application/text", true);
-            }
-            response = call.execute();
             if (response.code() > 299) {
                 if (response.code() == 404) {
                     return new Result("DID not found", "application/text", true);
@@ -67,22 +205,21 @@ public class HttpResolverClient implements ResolverClient {
                 if (body == null) {
                     return new Result("invalid response", "application/text", true);
                 }
+                ByteBuffer document;
                 try {
-                    String bodyString = body.string();
-                    String[] parts = bodyString.split("\"");
-                    String token = parts[3];
-                    Base64.Decoder decoder = Base64.getDecoder();
-                    String payload = new String(decoder.decode(token.split("\\.")[1]));
-                    return new Result(payload, "application/json", false);
+                    document = ResolverResponseParser.parse(body.charStream());
                 } catch (Exception e) {
                     return new Result("parsing error: " + e.getMessage(), "application/text", true);
                 }
+                if (sink != null) {
+                    sink.accept(document);
+                    return new Result("", "application/json", false);
+                }
+                return new Result(StandardCharsets.UTF_8.decode(document).toString(), "application/json", false);
             }
         } finally {
             try {
-                if(response != null) {
-                    response.close(); // Ensure the response is closed if not done automatically
-                }
+                response.close(); // Ensure the response is closed if not done automatically
             } catch (Exception e) {
                 // ignore
             }
@@ -1,9 +1,50 @@
 package smartrics.iotics.identity.resolver;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface ResolverClient {
+    int DEFAULT_MAX_IN_FLIGHT = 64;
+
     record Result(String content, String contentType, boolean isErr) { }
 
     Result discover(String did) throws IOException;
+
+    /**
+     * Discovers without blocking the caller. This default implementation runs {@link #discover(String)} on the
+     * calling thread; implementations able to do proper non blocking I/O override it.
+     *
+     * @param did the DID to discover
+     * @return a future completing with the result, or exceptionally with the discover errors
+     */
+    default CompletableFuture<Result> discoverAsync(String did) {
+        try {
+            return CompletableFuture.completedFuture(discover(did));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Discovers many DIDs concurrently, with at most {@link #DEFAULT_MAX_IN_FLIGHT} lookups in flight.
+     *
+     * @param dids the DIDs to discover
+     * @return the result for each distinct DID, in iteration order; failed lookups map to error results
+     */
+    default Map<String, Result> discoverAll(Collection<String> dids) {
+        return discoverAll(dids, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Discovers many DIDs concurrently via {@link #discoverAsync(String)}.
+     *
+     * @param dids        the DIDs to discover
+     * @param maxInFlight the maximum number of lookups in flight at any time
+     * @return the result for each distinct DID, in iteration order; failed lookups map to error results
+     */
+    default Map<String, Result> discoverAll(Collection<String> dids, int maxInFlight) {
+        return BatchDiscovery.discoverAll(this, dids, maxInFlight);
+    }
 }
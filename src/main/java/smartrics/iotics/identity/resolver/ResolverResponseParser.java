@@ -0,0 +1,66 @@
+package smartrics.iotics.identity.resolver;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Extracts the DID document from a resolver response of the form <code>{"token": "header.payload.signature"}</code>.
+ * The response is read with a streaming JSON reader, skipping anything other than the token, and the token payload
+ * is base64 decoded straight into a byte buffer. Both base64url, as per the JWT spec, and standard base64, with or
+ * without padding, are accepted.
+ */
+final class ResolverResponseParser {
+
+    private static final String TOKEN_FIELD = "token";
+
+    private ResolverResponseParser() {
+    }
+
+    /**
+     * @param reader the response body
+     * @return the UTF-8 encoded DID document, i.e. the decoded token payload
+     * @throws IOException              if the response can't be read or isn't a JSON object
+     * @throws IllegalArgumentException if the response doesn't contain a well formed token
+     */
+    static ByteBuffer parse(Reader reader) throws IOException {
+        return decodePayload(readToken(reader));
+    }
+
+    static String readToken(Reader reader) throws IOException {
+        try (JsonReader json = new JsonReader(reader)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (TOKEN_FIELD.equals(json.nextName()) && json.peek() == JsonToken.STRING) {
+                    return json.nextString();
+                }
+                json.skipValue();
+            }
+        }
+        throw new IllegalArgumentException("no token in response");
+    }
+
+    static ByteBuffer decodePayload(String token) {
+        int start = token.indexOf('.');
+        int end = start < 0 ? -1 : token.indexOf('.', start + 1);
+        if (end < 0) {
+            throw new IllegalArgumentException("token not in JWT format");
+        }
+        int len = end;
+        while (len > start + 1 && token.charAt(len - 1) == '=') {
+            len--;
+        }
+        byte[] src = new byte[len - start - 1];
+        for (int i = start + 1, j = 0; i < len; i++, j++) {
+            char c = token.charAt(i);
+            src[j] = (byte) (c == '+' ? '-' : c == '/' ? '_' : c);
+        }
+        byte[] dst = new byte[src.length * 3 / 4];
+        int n = Base64.getUrlDecoder().decode(src, dst);
+        return ByteBuffer.wrap(dst, 0, n).asReadOnlyBuffer();
+    }
+}
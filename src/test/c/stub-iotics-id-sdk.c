@@ -0,0 +1,97 @@
+/*
+ * Stub of lib-iotics-id-sdk exporting the same symbols as the real library (see lib/lib-iotics-id-sdk.h).
+ * Every function returns constant values without crypto or resolver I/O, so that the cost measured when calling it
+ * is the cost of crossing the JNA boundary. Returned strings are heap allocated, as in the real library, and must be
+ * released via FreeUpCString; StubAllocations and StubFrees report the counts.
+ *
+ * Build with:
+ *   gcc -shared -fPIC -O2 -o target/stub/lib-iotics-id-sdk-stub.so src/test/c/stub-iotics-id-sdk.c
+ */
+#include <stdlib.h>
+#include <string.h>
+
+typedef long long GoInt64;
+
+struct Result {
+    char *r0;
+    char *r1;
+};
+
+static volatile long long allocations = 0;
+static volatile long long frees = 0;
+
+static char *copy(const char *s) {
+    __sync_fetch_and_add(&allocations, 1);
+    return strdup(s);
+}
+
+static struct Result ok(const char *value) {
+    struct Result r = {copy(value), NULL};
+    return r;
+}
+
+long long StubAllocations() { return allocations; }
+
+long long StubFrees() { return frees; }
+
+void FreeUpCString(char *pointer) {
+    __sync_fetch_and_add(&frees, 1);
+    free(pointer);
+}
+
+struct Result CreateDefaultSeed() {
+    return ok("f25a09c9d21ad5f7535fac4c30afe1a9f2ca025a192db549044b1b0130d1e945");
+}
+
+struct Result MnemonicBip39ToSeed(char *cMnemonic) {
+    return ok("f25a09c9d21ad5f7535fac4c30afe1a9f2ca025a192db549044b1b0130d1e945");
+}
+
+struct Result SeedBip39ToMnemonic(char *cSeed) {
+    return ok("some mnemonic words");
+}
+
+struct Result CreateAgentIdentity(char *cResolverAddress, char *cKeyName, char *cName, char *cSeed) {
+    return ok("did:iotics:iotJxn2AHBkaFXKkBymbFYcVokGhLShLtUf1");
+}
+
+struct Result RecreateAgentIdentity(char *cResolverAddress, char *cKeyName, char *cName, char *cSeed) {
+    return ok("did:iotics:iotJxn2AHBkaFXKkBymbFYcVokGhLShLtUf1");
+}
+
+struct Result CreateUserIdentity(char *cResolverAddress, char *cKeyName, char *cName, char *cSeed) {
+    return ok("did:iotics:iotEBuXp2wHMREZmwYAyPhFzPYfWtt9Ka2R2");
+}
+
+struct Result RecreateUserIdentity(char *cResolverAddress, char *cKeyName, char *cName, char *cSeed) {
+    return ok("did:iotics:iotEBuXp2wHMREZmwYAyPhFzPYfWtt9Ka2R2");
+}
+
+char *UserDelegatesAuthenticationToAgent(char *cResolverAddress, char *cAgentDid, char *cAgentKeyName,
+                                         char *cAgentName, char *cAgentSeed, char *cUserDid, char *cUserKeyName,
+                                         char *cUserName, char *cUserSeed, char *cDelegationName) {
+    return NULL;
+}
+
+char *TwinDelegatesControlToAgent(char *cResolverAddress, char *cAgentDid, char *cAgentKeyName, char *cAgentName,
+                                  char *cAgentSeed, char *cTwinDid, char *cTwinKeyName, char *cTwinName,
+                                  char *cTwinSeed, char *cDelegationName) {
+    return NULL;
+}
+
+struct Result IsAllowedFor(char *cResolverAddress, char *cToken) {
+    return ok("true");
+}
+
+struct Result CreateAgentAuthToken(char *cAgentDid, char *cAgentKeyName, char *cAgentName, char *cAgentSeed,
+                                   char *cUserDid, char *cAudience, GoInt64 durationInSeconds) {
+    return ok("eyJhbGciOiJFUzI1NiIsInR5cCI6IkpXVCJ9"
+              ".eyJhdWQiOiJhdWQiLCJleHAiOjE2MDAwMDAwMTAsImlhdCI6MTYwMDAwMDAwMCwiaXNzIjoiZGlkOmlvdGljczphZ2VudCNhIiwic3ViIjoiZGlkOmlvdGljczp1c2VyIn0"
+              ".c2lnbmF0dXJl");
+}
+
+struct Result CreateTwinDidWithControlDelegation(char *cResolverAddress, char *cAgentDid, char *cAgentKeyName,
+                                                 char *cAgentName, char *cAgentSeed, char *cTwinKeyName,
+                                                 char *cTwinName) {
+    return ok("did:iotics:iotTwnDdKj8xhGzbPPjmZt7T9pyFKEeVrm5a");
+}
@@ -0,0 +1,153 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smartrics.iotics.identity.DataFactory.aValidToken;
+
+class AllowedForCacheTest {
+
+    private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000L);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private MutableClock clock;
+    private String verdict;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        verdict = "true";
+    }
+
+    @Test
+    void whenSameTokenCheckedTwice_thenDelegatesOnce() {
+        AllowedForCache cache = aCache().build();
+        String token = aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60);
+
+        assertEquals("true", cache.IsAllowedFor("resolver", token));
+        assertEquals("true", cache.IsAllowedFor("resolver", token));
+
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(0.5, cache.stats().hitRate());
+    }
+
+    @Test
+    void whenTokenExpired_thenDelegatesAgain() {
+        AllowedForCache cache = aCache().build();
+        String token = aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60);
+
+        cache.IsAllowedFor("resolver", token);
+        clock.advance(Duration.ofSeconds(60));
+        cache.IsAllowedFor("resolver", token);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void whenResolverDiffers_thenDelegatesAgain() {
+        AllowedForCache cache = aCache().build();
+        String token = aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60);
+
+        cache.IsAllowedFor("resolver1", token);
+        cache.IsAllowedFor("resolver2", token);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void whenTokenHasNoExpiry_thenNotCached() {
+        AllowedForCache cache = aCache().build();
+
+        cache.IsAllowedFor("resolver", "opaque");
+        cache.IsAllowedFor("resolver", "opaque");
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void whenNegativeAndNoNegativeTtl_thenNotCached() {
+        verdict = "false";
+        AllowedForCache cache = aCache().build();
+        String token = aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60);
+
+        cache.IsAllowedFor("resolver", token);
+        cache.IsAllowedFor("resolver", token);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void whenNegativeWithNegativeTtl_thenCachedForTtl() {
+        verdict = "false";
+        AllowedForCache cache = aCache().withNegativeTtl(Duration.ofSeconds(5)).build();
+        String token = aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60);
+
+        assertEquals("false", cache.IsAllowedFor("resolver", token));
+        assertEquals("false", cache.IsAllowedFor("resolver", token));
+        clock.advance(Duration.ofSeconds(5));
+        cache.IsAllowedFor("resolver", token);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void whenErrorWithNegativeTtl_thenErrorReplayed() {
+        AllowedForCache cache = aCache().withNegativeTtl(Duration.ofSeconds(5))
+                .withDelegate(failing()).build();
+        String token = aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60);
+
+        SimpleIdentityException first = assertThrows(SimpleIdentityException.class, () -> cache.IsAllowedFor("resolver", token));
+        SimpleIdentityException second = assertThrows(SimpleIdentityException.class, () -> cache.IsAllowedFor("resolver", token));
+
+        assertEquals(first.getMessage(), second.getMessage());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void whenErrorWithoutNegativeTtl_thenNotCached() {
+        AllowedForCache cache = aCache().withDelegate(failing()).build();
+        String token = aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60);
+
+        assertThrows(SimpleIdentityException.class, () -> cache.IsAllowedFor("resolver", token));
+        assertThrows(SimpleIdentityException.class, () -> cache.IsAllowedFor("resolver", token));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void whenMaximumEntriesExceeded_thenEvicts() {
+        AllowedForCache cache = aCache().withMaximumEntries(2).build();
+
+        for (int i = 1; i <= 3; i++) {
+            cache.IsAllowedFor("resolver", aValidToken(NOW.getEpochSecond(), NOW.getEpochSecond() + 60 + i));
+        }
+
+        assertEquals(2, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    private BiFunction<String, String, String> failing() {
+        return (r, t) -> {
+            calls.incrementAndGet();
+            throw new SimpleIdentityException("not allowed");
+        };
+    }
+
+    private AllowedForCache.Builder aCache() {
+        return AllowedForCache.Builder.anAllowedForCache()
+                .withDelegate((r, t) -> {
+                    calls.incrementAndGet();
+                    return verdict;
+                })
+                .withClock(clock);
+    }
+}
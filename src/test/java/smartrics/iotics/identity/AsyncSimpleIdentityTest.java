@@ -0,0 +1,97 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import smartrics.iotics.identity.jna.SdkApi;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static smartrics.iotics.identity.DataFactory.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncSimpleIdentityTest {
+
+    @Mock
+    SdkApi sdkApi;
+
+    private final ExecutorService executor = AsyncSimpleIdentity.newNativeCallExecutor(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void whenCreateAgentAuthToken_thenRunsOnNativeExecutor() throws Exception {
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(sdkApi.CreateAgentAuthToken(any(), any(), any(), any(), any(), any(), anyLong())).thenAnswer(i -> {
+            thread.set(Thread.currentThread().getName());
+            return validResult("some token");
+        });
+        AsyncSimpleIdentity si = new AsyncSimpleIdentity(new SimpleIdentity(sdkApi, validUrl(), "some seed"), executor);
+
+        String token = si.CreateAgentAuthToken(aValidAgentIdentity(), "did:iotics:user", "aud", Duration.ofSeconds(10))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("some token", token);
+        assertTrue(thread.get().startsWith("iotics-identity-native-"));
+    }
+
+    @Test
+    void whenRecreateAgentAuthToken_thenRunsOnNativeExecutor() throws Exception {
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(sdkApi.CreateAgentAuthToken(any(), any(), any(), any(), any(), any(), anyLong())).thenAnswer(i -> {
+            thread.set(Thread.currentThread().getName());
+            return validResult("some token");
+        });
+        AsyncSimpleIdentity si = new AsyncSimpleIdentity(new SimpleIdentity(sdkApi, validUrl(), "some seed"), executor);
+
+        String token = si.RecreateAgentAuthToken(aValidAgentIdentity(), "did:iotics:user", Duration.ofSeconds(10))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("some token", token);
+        assertTrue(thread.get().startsWith("iotics-identity-native-"));
+    }
+
+    @Test
+    void whenNativeCallFails_thenFutureCompletesExceptionally() {
+        when(sdkApi.CreateUserIdentity(any(), any(), any(), any())).thenReturn(errorResult("some error"));
+        AsyncSimpleIdentity si = new AsyncSimpleIdentity(new SimpleIdentity(sdkApi, validUrl(), "some seed"), executor);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> si.CreateUserIdentity("userKeyName", "userName").get(5, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause() instanceof SimpleIdentityException);
+    }
+
+    @Test
+    void whenComposingOperations_thenChainsWithoutBlocking() throws Exception {
+        when(sdkApi.CreateAgentIdentity(any(), any(), any(), any())).thenReturn(validResult("agent did"));
+        when(sdkApi.CreateTwinDidWithControlDelegation(any(), any(), any(), any(), any(), any(), any())).thenReturn(validResult("twin did"));
+        AsyncSimpleIdentity si = new AsyncSimpleIdentity(new SimpleIdentity(sdkApi, validUrl(), "some seed"), executor);
+
+        Identity twin = si.CreateAgentIdentity("agentKeyName", "#agent")
+                .thenCompose(agent -> si.CreateTwinIdentityWithControlDelegation(agent, "twinKeyName", "#twin"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("twin did", twin.did());
+    }
+
+    @Test
+    void whenAdaptingIdentityManager_thenDelegates() throws Exception {
+        IdentityManager im = mock(IdentityManager.class);
+        when(im.newAuthenticationToken(Duration.ofSeconds(10), "aud")).thenReturn("some token");
+        AsyncIdentityManager aim = new AsyncSimpleIdentityManager(im, executor);
+
+        assertEquals("some token", aim.newAuthenticationToken(Duration.ofSeconds(10), "aud").get(5, TimeUnit.SECONDS));
+    }
+}
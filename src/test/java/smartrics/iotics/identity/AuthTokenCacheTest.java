@@ -0,0 +1,133 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smartrics.iotics.identity.DataFactory.aValidToken;
+
+public class AuthTokenCacheTest {
+
+    private final MutableClock clock = new MutableClock(Instant.ofEpochSecond(1_000_000));
+
+    @Test
+    void invalidRefreshFraction() {
+        assertThrows(IllegalArgumentException.class, () -> new AuthTokenCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new AuthTokenCache(1.1));
+    }
+
+    @Test
+    void whenTokenIsWithinRefreshFraction_thenReturnsCachedToken() {
+        AuthTokenCache cache = new AuthTokenCache(0.5, clock);
+        AtomicInteger mints = new AtomicInteger();
+
+        String first = cache.get("aud", Duration.ofSeconds(100), () -> mint(mints, 100));
+        clock.advance(Duration.ofSeconds(49));
+        String second = cache.get("aud", Duration.ofSeconds(100), () -> mint(mints, 100));
+
+        assertSame(first, second);
+        assertEquals(1, mints.get());
+    }
+
+    @Test
+    void whenRefreshFractionElapsed_thenMintsNewToken() {
+        AuthTokenCache cache = new AuthTokenCache(0.5, clock);
+        AtomicInteger mints = new AtomicInteger();
+
+        String first = cache.get("aud", Duration.ofSeconds(100), () -> mint(mints, 100));
+        clock.advance(Duration.ofSeconds(50));
+        String second = cache.get("aud", Duration.ofSeconds(100), () -> mint(mints, 100));
+
+        assertNotEquals(first, second);
+        assertEquals(2, mints.get());
+    }
+
+    @Test
+    void whenAudienceOrDurationDiffer_thenCachesSeparately() {
+        AuthTokenCache cache = new AuthTokenCache(0.5, clock);
+        AtomicInteger mints = new AtomicInteger();
+
+        cache.get("aud1", Duration.ofSeconds(100), () -> mint(mints, 100));
+        cache.get("aud2", Duration.ofSeconds(100), () -> mint(mints, 100));
+        cache.get("aud1", Duration.ofSeconds(200), () -> mint(mints, 200));
+
+        assertEquals(3, mints.get());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void whenTokenHasNoClaims_thenUsesRequestedDuration() {
+        AuthTokenCache cache = new AuthTokenCache(0.5, clock);
+
+        cache.get("aud", Duration.ofSeconds(10), () -> "some token");
+        AuthTokenCache.CachedToken cached = cache.peek("aud", Duration.ofSeconds(10));
+
+        assertEquals(clock.instant().plusSeconds(10), cached.expiresAt());
+        assertEquals(clock.instant().plusSeconds(5), cached.refreshAt());
+    }
+
+    @Test
+    void whenInvalidated_thenMintsNewToken() {
+        AuthTokenCache cache = new AuthTokenCache(0.5, clock);
+        AtomicInteger mints = new AtomicInteger();
+
+        cache.get("aud", Duration.ofSeconds(100), () -> mint(mints, 100));
+        cache.invalidate("aud", Duration.ofSeconds(100));
+        cache.get("aud", Duration.ofSeconds(100), () -> mint(mints, 100));
+
+        assertEquals(2, mints.get());
+    }
+
+    @Test
+    void whenConcurrentCallersFindStaleToken_thenOnlyOneRefreshes() throws Exception {
+        AuthTokenCache cache = new AuthTokenCache(0.5, clock);
+        AtomicInteger mints = new AtomicInteger();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("aud", Duration.ofSeconds(100), () -> {
+                        sleep(50);
+                        return mint(mints, 100);
+                    });
+                }));
+            }
+            start.countDown();
+            String expected = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, mints.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String mint(AtomicInteger mints, long lifetime) {
+        mints.incrementAndGet();
+        long now = clock.instant().getEpochSecond();
+        return aValidToken(now, now + lifetime) + mints.get();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
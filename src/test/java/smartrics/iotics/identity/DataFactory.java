@@ -1,6 +1,10 @@
 package smartrics.iotics.identity;
 
 import smartrics.iotics.identity.go.StringResult;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 public final class DataFactory {
     public static String validUrl() {
@@ -23,4 +27,37 @@ public final class DataFactory {
         return new Identity("uKeyName", "uName", "did:iotics:abc");
     }
 
+    public static String aValidToken(long iat, long exp) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"ES256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"aud\":\"aud\",\"exp\":" + exp + ",\"iat\":" + iat +
+                ",\"iss\":\"did:iotics:123#aName\",\"sub\":\"did:iotics:abc\"}").getBytes(StandardCharsets.UTF_8));
+        return header + "." + payload + ".signature";
+    }
+
+    /**
+     * @param did    the document DID
+     * @param fields the document fields, as built by {@link #aField(String, String...)}
+     * @return a successful discover result holding the document
+     */
+    public static ResolverClient.Result aDidDocument(String did, String... fields) {
+        StringBuilder doc = new StringBuilder("{\"doc\":{\"id\":\"").append(did).append('"');
+        for (String field : fields) {
+            doc.append(',').append(field);
+        }
+        return new ResolverClient.Result(doc.append("}}").toString(), "application/json", false);
+    }
+
+    public static String aField(String name, String... elements) {
+        return "\"" + name + "\":[" + String.join(",", elements) + "]";
+    }
+
+    public static String aPublicKey(String id) {
+        return "{\"id\":\"" + id + "\",\"publicKeyBase58\":\"x\"}";
+    }
+
+    public static String aDelegation(String id, String controller, String proof, boolean revoked) {
+        return "{\"id\":\"" + id + "\",\"controller\":\"" + controller + "\",\"proof\":\"" + proof +
+                "\",\"revoked\":" + revoked + "}";
+    }
 }
@@ -0,0 +1,116 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import smartrics.iotics.identity.jna.SdkApi;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static smartrics.iotics.identity.DataFactory.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DelegateIfAbsentTest {
+
+    @Mock
+    SdkApi sdkApi;
+    @Mock
+    ResolverClient resolverClient;
+
+    private final Identity agent = aValidAgentIdentity();
+    private final Identity user = aValidUserIdentity();
+    private final Identity twin = new Identity("tKey", "tName", "did:iotics:twin");
+    private DelegateIfAbsent delegations;
+
+    @BeforeEach
+    void setUp() {
+        delegations = DelegateIfAbsent.Builder.aDelegateIfAbsent()
+                .withSimpleIdentity(new SimpleIdentity(sdkApi, validUrl(), "some seed"))
+                .withResolverClient(resolverClient)
+                .build();
+    }
+
+    @Test
+    void whenAuthenticationDelegationExists_thenSkipsWrite() throws IOException {
+        when(resolverClient.discover(user.did())).thenReturn(aDidDocument(user.did(), aField("delegateAuthentication",
+                aDelegation("#deleg-0", agent.did() + "#" + agent.name(), "proof", false))));
+
+        assertFalse(delegations.UserDelegatesAuthenticationToAgent(agent, user, "#deleg-0"));
+
+        verify(sdkApi, never()).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        assertEquals(new DelegateIfAbsent.Stats(1, 0), delegations.stats());
+    }
+
+    @Test
+    void whenDelegationNameWithoutHash_thenMatches() throws IOException {
+        when(resolverClient.discover(user.did())).thenReturn(aDidDocument(user.did(), aField("delegateAuthentication",
+                aDelegation("#deleg-0", agent.did() + "#" + agent.name(), "proof", false))));
+
+        assertFalse(delegations.UserDelegatesAuthenticationToAgent(agent, user, "deleg-0"));
+    }
+
+    @Test
+    void whenDelegationMissing_thenWrites() throws IOException {
+        when(resolverClient.discover(user.did())).thenReturn(aDidDocument(user.did(), aField("delegateAuthentication")));
+
+        assertTrue(delegations.UserDelegatesAuthenticationToAgent(agent, user, "#deleg-0"));
+
+        verify(sdkApi).UserDelegatesAuthenticationToAgent(any(), eq(agent.did()), any(), any(), any(), eq(user.did()), any(), any(), any(), eq("#deleg-0"));
+        assertEquals(new DelegateIfAbsent.Stats(0, 1), delegations.stats());
+    }
+
+    @Test
+    void whenDelegationToOtherAgentOrNameOrRevokedOrWithoutProof_thenWrites() throws IOException {
+        when(resolverClient.discover(user.did())).thenReturn(aDidDocument(user.did(), aField("delegateAuthentication",
+                aDelegation("#deleg-0", "did:iotics:other#key", "proof", false),
+                aDelegation("#deleg-1", agent.did() + "#" + agent.name(), "proof", false),
+                aDelegation("#deleg-0", agent.did() + "#" + agent.name(), "proof", true),
+                aDelegation("#deleg-0", agent.did() + "#" + agent.name(), "", false))));
+
+        assertTrue(delegations.UserDelegatesAuthenticationToAgent(agent, user, "#deleg-0"));
+    }
+
+    @Test
+    void whenDocumentUnavailable_thenWrites() throws IOException {
+        when(resolverClient.discover(user.did()))
+                .thenReturn(new ResolverClient.Result("not found", "text/plain", true))
+                .thenReturn(new ResolverClient.Result("not json", "text/plain", false))
+                .thenThrow(new IOException("down"));
+
+        assertTrue(delegations.UserDelegatesAuthenticationToAgent(agent, user, "#deleg-0"));
+        assertTrue(delegations.UserDelegatesAuthenticationToAgent(agent, user, "#deleg-0"));
+        assertTrue(delegations.UserDelegatesAuthenticationToAgent(agent, user, "#deleg-0"));
+        assertEquals(new DelegateIfAbsent.Stats(0, 3), delegations.stats());
+    }
+
+    @Test
+    void whenControlDelegationExists_thenSkipsWrite() throws IOException {
+        when(resolverClient.discover(twin.did()))
+                .thenReturn(aDidDocument(twin.did(),
+                        aField("delegateControl", aDelegation("#deleg-0", agent.did() + "#" + agent.name(), "proof", false))))
+                .thenReturn(aDidDocument(twin.did(),
+                        aField("delegateAuthentication", aDelegation("#deleg-0", agent.did() + "#" + agent.name(), "proof", false))));
+
+        assertFalse(delegations.TwinDelegatesControlToAgent(agent, twin, "#deleg-0"));
+        assertTrue(delegations.TwinDelegatesControlToAgent(agent, twin, "#deleg-0"));
+
+        verify(sdkApi, times(1)).TwinDelegatesControlToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        assertEquals(new DelegateIfAbsent.Stats(1, 1), delegations.stats());
+    }
+
+    @Test
+    void whenWriteFails_thenThrowsAndDoesNotCount() throws IOException {
+        when(resolverClient.discover(user.did())).thenReturn(aDidDocument(user.did(), aField("delegateAuthentication")));
+        when(sdkApi.UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn("boom");
+
+        assertThrows(SimpleIdentityException.class, () -> delegations.UserDelegatesAuthenticationToAgent(agent, user, "#deleg-0"));
+        assertEquals(new DelegateIfAbsent.Stats(0, 0), delegations.stats());
+    }
+}
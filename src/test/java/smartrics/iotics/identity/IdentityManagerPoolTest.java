@@ -0,0 +1,172 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import smartrics.iotics.identity.jna.SdkApi;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static smartrics.iotics.identity.DataFactory.errorResult;
+import static smartrics.iotics.identity.DataFactory.validResult;
+
+public class IdentityManagerPoolTest {
+
+    private static final IdentityManagerPool.Tenant TENANT_A = new IdentityManagerPool.Tenant("uSeedA", "uKey", "aSeedA", "aKey");
+    private static final IdentityManagerPool.Tenant TENANT_B = new IdentityManagerPool.Tenant("uSeedB", "uKey", "aSeedB", "aKey");
+
+    private SdkApi api;
+
+    @BeforeEach
+    void setUp() {
+        api = Mockito.mock(SdkApi.class);
+        when(api.CreateUserIdentity(any(), any(), any(), any())).thenAnswer(i -> validResult("did:iotics:user-" + i.getArgument(3)));
+        when(api.CreateAgentIdentity(any(), any(), any(), any())).thenAnswer(i -> validResult("did:iotics:agent-" + i.getArgument(3)));
+    }
+
+    @Test
+    void whenTenantRequestedAgain_thenResidentManagerReturned() {
+        IdentityManagerPool pool = aPool().build();
+
+        SimpleIdentityManager manager = pool.get(TENANT_A);
+
+        assertSame(manager, pool.get(TENANT_A));
+        assertEquals("did:iotics:user-uSeedA", manager.userIdentity().did());
+        assertEquals("did:iotics:agent-aSeedA", manager.agentIdentity().did());
+        assertEquals(1, pool.stats(TENANT_A).hits());
+        assertEquals(1, pool.stats().builds());
+        assertEquals(new IdentityManagerPool.TenantStats(0, Duration.ZERO), pool.stats(TENANT_B));
+        verify(api, times(1)).CreateUserIdentity(any(), any(), any(), any());
+    }
+
+    @Test
+    void whenTenantsDiffer_thenManagersShareApi() {
+        IdentityManagerPool pool = aPool().build();
+
+        SimpleIdentityManager a = pool.get(TENANT_A);
+        SimpleIdentityManager b = pool.get(TENANT_B);
+
+        assertNotSame(a, b);
+        assertEquals("did:iotics:user-uSeedB", b.userIdentity().did());
+        verify(api, times(2)).CreateUserIdentity(any(), any(), any(), any());
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    void whenRequestedConcurrently_thenBuiltOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(api.CreateUserIdentity(any(), any(), any(), any())).thenAnswer(i -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return validResult("did:iotics:user");
+        });
+        IdentityManagerPool pool = aPool().build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<SimpleIdentityManager>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> pool.get(TENANT_A)));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            SimpleIdentityManager first = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<SimpleIdentityManager> f : futures) {
+                assertSame(first, f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, pool.stats().builds());
+        assertEquals(7, pool.stats(TENANT_A).hits());
+    }
+
+    @Test
+    void whenBeyondMaximum_thenLeastRecentlyUsedEvictedAndRebuilt() {
+        IdentityManagerPool pool = aPool().withMaximumManagers(1).build();
+
+        SimpleIdentityManager a = pool.get(TENANT_A);
+        pool.get(TENANT_A);
+        pool.get(TENANT_B);
+
+        assertNull(pool.getIfPresent(TENANT_A));
+        assertEquals(new IdentityManagerPool.TenantStats(0, Duration.ZERO), pool.stats(TENANT_A));
+        assertFalse(pool.tenantStats().containsKey(TENANT_A));
+        assertNotSame(a, pool.get(TENANT_A));
+        assertEquals(0, pool.stats(TENANT_A).hits());
+        assertEquals(1, pool.size());
+        assertEquals(2, pool.stats().evictions());
+        assertEquals(3, pool.stats().builds());
+        assertEquals(1, pool.stats().hits());
+    }
+
+    @Test
+    void whenInvalidated_thenCountersFoldedIntoPoolTotals() {
+        IdentityManagerPool pool = aPool().build();
+        pool.get(TENANT_A);
+        pool.get(TENANT_A);
+        pool.get(TENANT_B);
+
+        pool.invalidateAll();
+
+        assertEquals(0, pool.size());
+        assertTrue(pool.tenantStats().isEmpty());
+        assertEquals(new IdentityManagerPool.Stats(1, 2, 0, 0, 0), pool.stats());
+    }
+
+    @Test
+    void whenBuildFails_thenFailureNotCached() {
+        when(api.CreateAgentIdentity(any(), any(), any(), eq("aSeedA")))
+                .thenReturn(errorResult("boom"))
+                .thenReturn(validResult("did:iotics:agent"));
+        IdentityManagerPool pool = aPool().build();
+
+        assertThrows(SimpleIdentityException.class, () -> pool.get(TENANT_A));
+        assertNotNull(pool.get(TENANT_A));
+        assertEquals(1, pool.stats().failures());
+        assertEquals(1, pool.stats().builds());
+    }
+
+    @Test
+    void whenCustomizerSet_thenAppliedPerTenant() {
+        List<IdentityManagerPool.Tenant> customized = new ArrayList<>();
+        IdentityManagerPool pool = aPool()
+                .withManagerCustomizer((t, b) -> {
+                    customized.add(t);
+                    b.withAuthDelegationID("#deleg-" + t.agentSeed());
+                })
+                .build();
+
+        pool.get(TENANT_A);
+
+        assertEquals(List.of(TENANT_A), customized);
+        verify(api).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), eq("#deleg-aSeedA"));
+    }
+
+    @Test
+    void tenantStringOmitsSeeds() {
+        assertFalse(TENANT_A.toString().contains("SeedA"));
+        assertEquals(TENANT_A, IdentityManagerPool.Tenant.of(new SimpleConfig("uSeedA", "uKey"), new SimpleConfig("aSeedA", "aKey")));
+    }
+
+    private IdentityManagerPool.Builder aPool() {
+        return IdentityManagerPool.Builder.anIdentityManagerPool()
+                .withSdkApi(api)
+                .withResolverClient(Mockito.mock(ResolverClient.class))
+                .withResolverAddress("http://localhost:9044");
+    }
+}
@@ -0,0 +1,171 @@
+package smartrics.iotics.identity;
+
+import org.bitcoinj.core.Base58;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.util.BigIntegers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LocalTokenVerifierTest {
+
+    private static final X9ECParameters CURVE = CustomNamedCurves.getByName("secp256k1");
+    private static final ECDomainParameters DOMAIN = new ECDomainParameters(CURVE.getCurve(), CURVE.getG(), CURVE.getN(), CURVE.getH());
+    private static final String AGENT = "did:iotics:agent";
+    private static final String USER = "did:iotics:user";
+    private static final long NOW = 1_700_000_000L;
+
+    private final BigInteger agentKey = new BigInteger("1234567890abcdef1234567890abcdef1234567890abcdef1234567890abcdef", 16);
+    private ResolverClient resolver;
+    private LocalTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        resolver = Mockito.mock(ResolverClient.class);
+        when(resolver.discover(AGENT)).thenReturn(doc(AGENT, "\"publicKey\":[{\"id\":\"#agent-0\",\"type\":\"Secp256k1VerificationKey2018\"," +
+                "\"publicKeyBase58\":\"" + Base58.encode(CURVE.getG().multiply(agentKey).getEncoded(false)) + "\",\"revoked\":false}]"));
+        when(resolver.discover(USER)).thenReturn(doc(USER, "\"delegateAuthentication\":[{\"id\":\"#deleg-0\"," +
+                "\"controller\":\"" + AGENT + "#agent-0\",\"proof\":\"p\",\"proofType\":\"did\",\"revoked\":false}]"));
+        verifier = LocalTokenVerifier.Builder.aLocalTokenVerifier()
+                .withResolverClient(resolver)
+                .withAudience("aud")
+                .withClock(Clock.fixed(Instant.ofEpochSecond(NOW), ZoneOffset.UTC))
+                .build();
+    }
+
+    @Test
+    void whenTokenSignedByDelegatedAgent_thenAllowed() throws IOException {
+        LocalTokenVerifier.Verdict verdict = verifier.verify(token(AGENT + "#agent-0", USER, "aud", NOW + 60, agentKey));
+
+        assertTrue(verdict.allowed(), verdict.reason());
+        assertEquals(USER, verdict.subject());
+        assertEquals(Instant.ofEpochSecond(NOW + 60), verdict.expiresAt());
+        assertTrue(verdict.delegationProofUnverified());
+    }
+
+    @Test
+    void whenSubjectIsIssuer_thenAllowedWithoutDelegation() throws IOException {
+        LocalTokenVerifier.Verdict verdict = verifier.verify(token(AGENT + "#agent-0", AGENT, "aud", NOW + 60, agentKey));
+
+        assertTrue(verdict.allowed(), verdict.reason());
+        assertFalse(verdict.delegationProofUnverified());
+        verify(resolver, never()).discover(USER);
+    }
+
+    @Test
+    void whenSignedWithAnotherKey_thenDenied() throws IOException {
+        LocalTokenVerifier.Verdict verdict = verifier.verify(token(AGENT + "#agent-0", USER, "aud", NOW + 60, agentKey.add(BigInteger.ONE)));
+
+        assertFalse(verdict.allowed());
+        assertEquals("invalid signature", verdict.reason());
+    }
+
+    @Test
+    void whenExpired_thenDenied() throws IOException {
+        assertEquals("token expired", verifier.verify(token(AGENT + "#agent-0", USER, "aud", NOW, agentKey)).reason());
+    }
+
+    @Test
+    void whenAudienceDiffers_thenDenied() throws IOException {
+        assertFalse(verifier.isAllowed(token(AGENT + "#agent-0", USER, "other", NOW + 60, agentKey)));
+    }
+
+    @Test
+    void whenIssuerKeyUnknown_thenDenied() throws IOException {
+        assertFalse(verifier.isAllowed(token(AGENT + "#agent-1", USER, "aud", NOW + 60, agentKey)));
+    }
+
+    @Test
+    void whenNoDelegation_thenDenied() throws IOException {
+        when(resolver.discover(USER)).thenReturn(doc(USER, "\"delegateAuthentication\":[{\"id\":\"#deleg-0\"," +
+                "\"controller\":\"" + AGENT + "#agent-0\",\"revoked\":true}]"));
+
+        assertEquals("no authentication delegation from subject to issuer",
+                verifier.verify(token(AGENT + "#agent-0", USER, "aud", NOW + 60, agentKey)).reason());
+    }
+
+    @Test
+    void whenDelegationWithoutProof_thenDenied() throws IOException {
+        when(resolver.discover(USER)).thenReturn(doc(USER, "\"delegateAuthentication\":[{\"id\":\"#deleg-0\"," +
+                "\"controller\":\"" + AGENT + "#agent-0\",\"revoked\":false}]"));
+
+        assertEquals("no authentication delegation from subject to issuer",
+                verifier.verify(token(AGENT + "#agent-0", USER, "aud", NOW + 60, agentKey)).reason());
+    }
+
+    @Test
+    void whenIssuerKeyOnlyAnAuthenticationKey_thenDenied() throws IOException {
+        when(resolver.discover(AGENT)).thenReturn(doc(AGENT, "\"authentication\":[{\"id\":\"#agent-0\"," +
+                "\"publicKeyBase58\":\"" + Base58.encode(CURVE.getG().multiply(agentKey).getEncoded(false)) + "\"}]"));
+
+        assertEquals("issuer key not found: " + AGENT + "#agent-0",
+                verifier.verify(token(AGENT + "#agent-0", USER, "aud", NOW + 60, agentKey)).reason());
+    }
+
+    @Test
+    void whenDelegationToAnotherKeyOfIssuer_thenDenied() throws IOException {
+        BigInteger otherKey = agentKey.add(BigInteger.TWO);
+        when(resolver.discover(AGENT)).thenReturn(doc(AGENT, "\"publicKey\":[" +
+                "{\"id\":\"#agent-0\",\"publicKeyBase58\":\"" + Base58.encode(CURVE.getG().multiply(agentKey).getEncoded(false)) + "\"}," +
+                "{\"id\":\"#agent-1\",\"publicKeyBase58\":\"" + Base58.encode(CURVE.getG().multiply(otherKey).getEncoded(false)) + "\"}]"));
+
+        assertTrue(verifier.isAllowed(token(AGENT + "#agent-0", USER, "aud", NOW + 60, agentKey)));
+        assertEquals("no authentication delegation from subject to issuer",
+                verifier.verify(token(AGENT + "#agent-1", USER, "aud", NOW + 60, otherKey)).reason());
+    }
+
+    @Test
+    void whenMalformed_thenDenied() throws IOException {
+        assertFalse(verifier.isAllowed("not a token"));
+        assertFalse(verifier.isAllowed("a.b.c"));
+        verifyNoInteractions(resolver);
+    }
+
+    @Test
+    void whenResolverFails_thenThrows() throws IOException {
+        when(resolver.discover(AGENT)).thenThrow(new IOException("down"));
+
+        assertThrows(IOException.class, () -> verifier.verify(token(AGENT + "#agent-0", USER, "aud", NOW + 60, agentKey)));
+    }
+
+    private static ResolverClient.Result doc(String did, String fields) {
+        return new ResolverClient.Result("{\"doc\":{\"id\":\"" + did + "\"," + fields + "}}", "application/json", false);
+    }
+
+    private static String token(String iss, String sub, String aud, long exp, BigInteger key) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signed = encoder.encodeToString("{\"alg\":\"ES256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8)) + "." +
+                encoder.encodeToString(("{\"aud\":\"" + aud + "\",\"exp\":" + exp + ",\"iat\":" + (exp - 60) +
+                        ",\"iss\":\"" + iss + "\",\"sub\":\"" + sub + "\"}").getBytes(StandardCharsets.UTF_8));
+        try {
+            ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+            signer.init(true, new ECPrivateKeyParameters(key, DOMAIN));
+            BigInteger[] rs = signer.generateSignature(MessageDigest.getInstance("SHA-256").digest(signed.getBytes(StandardCharsets.US_ASCII)));
+            byte[] sig = new byte[64];
+            System.arraycopy(BigIntegers.asUnsignedByteArray(32, rs[0]), 0, sig, 0, 32);
+            System.arraycopy(BigIntegers.asUnsignedByteArray(32, rs[1]), 0, sig, 32, 32);
+            return signed + "." + encoder.encodeToString(sig);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import smartrics.iotics.identity.experimental.JWT;
+import smartrics.iotics.identity.jna.SdkApi;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static smartrics.iotics.identity.DataFactory.*;
+
+class SimpleIdentityManagerTest {
+
+    private static final String USER_DID = "did:iotics:user";
+    private static final String AGENT_DID = "did:iotics:agent";
+
+    @TempDir
+    Path dir;
+    private SdkApi api;
+    private ResolverClient resolver;
+    private Path snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        api = Mockito.mock(SdkApi.class);
+        when(api.CreateUserIdentity(any(), any(), any(), any())).thenReturn(validResult(USER_DID));
+        when(api.CreateAgentIdentity(any(), any(), any(), any())).thenReturn(validResult(AGENT_DID));
+        resolver = Mockito.mock(ResolverClient.class);
+        when(resolver.discover(AGENT_DID)).thenReturn(aDidDocument(AGENT_DID, aField("publicKey", aPublicKey("#agent-0"))));
+        when(resolver.discover(USER_DID)).thenReturn(aDidDocument(USER_DID, aField("publicKey", aPublicKey("#user-0")),
+                aField("delegateAuthentication", aDelegation("#deleg-0", AGENT_DID + "#agent-0", "p", false))));
+        snapshot = dir.resolve("identity.json");
+    }
+
+    @Test
+    void whenNoSnapshotConfigured_thenBootstraps() throws Exception {
+        SimpleIdentityManager manager = aManager().build();
+
+        assertEquals(SnapshotStatus.NOT_CONFIGURED, manager.snapshotStatus().get());
+        assertEquals(USER_DID, manager.userIdentity().did());
+        assertEquals(AGENT_DID, manager.agentIdentity().did());
+        verify(api).UserDelegatesAuthenticationToAgent(any(), eq(AGENT_DID), any(), any(), any(), eq(USER_DID), any(), any(), any(), eq("#deleg-0"));
+    }
+
+    @Test
+    void whenSnapshotMissing_thenBootstrapsAndWritesIt() throws Exception {
+        SimpleIdentityManager manager = aManager().withSnapshot(snapshot).build();
+
+        assertEquals(SnapshotStatus.BOOTSTRAPPED, manager.snapshotStatus().get());
+        assertTrue(Files.exists(snapshot));
+        assertFalse(Files.readString(snapshot).contains("seed"));
+        assertEquals(manager.userIdentity(), IdentitySnapshot.read(snapshot).userIdentity());
+    }
+
+    @Test
+    void whenSnapshotCurrent_thenSkipsBootstrap() throws Exception {
+        aManager().withSnapshot(snapshot).build();
+        reset(api);
+
+        SimpleIdentityManager manager = aManager().withSnapshot(snapshot).build();
+
+        assertEquals(USER_DID, manager.userIdentity().did());
+        assertEquals(AGENT_DID, manager.agentIdentity().did());
+        assertEquals(SnapshotStatus.VALID, manager.snapshotStatus().get(5, TimeUnit.SECONDS));
+        verifyNoInteractions(api);
+    }
+
+    @Test
+    void whenConfigurationChanged_thenBootstraps() throws Exception {
+        aManager().withSnapshot(snapshot).build();
+
+        SimpleIdentityManager manager = aManager().withAgentKeyName("otherKey").withSnapshot(snapshot).build();
+
+        assertEquals(SnapshotStatus.BOOTSTRAPPED, manager.snapshotStatus().get());
+        verify(api, times(2)).CreateAgentIdentity(any(), any(), any(), any());
+    }
+
+    @Test
+    void whenSnapshotStale_thenRebuildsInBackground() throws Exception {
+        aManager().withSnapshot(snapshot).build();
+        when(resolver.discover(USER_DID)).thenReturn(new ResolverClient.Result("not found", "application/text", true));
+
+        SimpleIdentityManager manager = aManager().withSnapshot(snapshot).build();
+
+        assertEquals(SnapshotStatus.REBUILT, manager.snapshotStatus().get(5, TimeUnit.SECONDS));
+        verify(api, times(2)).CreateUserIdentity(any(), any(), any(), any());
+        verify(api, times(2)).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void whenSnapshotDelegationReplaced_thenRebuildsInBackground() throws Exception {
+        aManager().withSnapshot(snapshot).build();
+        when(resolver.discover(USER_DID)).thenReturn(aDidDocument(USER_DID, aField("publicKey", aPublicKey("#user-0")),
+                aField("delegateAuthentication", aDelegation("#deleg-1", AGENT_DID + "#agent-0", "p", false),
+                        aDelegation("#deleg-0", AGENT_DID + "#agent-0", "", false))));
+
+        SimpleIdentityManager manager = aManager().withSnapshot(snapshot).build();
+
+        assertEquals(SnapshotStatus.REBUILT, manager.snapshotStatus().get(5, TimeUnit.SECONDS));
+        verify(api, times(2)).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void whenResolverUnreachable_thenKeepsSnapshot() throws Exception {
+        aManager().withSnapshot(snapshot).build();
+        when(resolver.discover(AGENT_DID)).thenThrow(new IOException("down"));
+
+        SimpleIdentityManager manager = aManager().withSnapshot(snapshot).build();
+
+        assertEquals(SnapshotStatus.UNVERIFIED, manager.snapshotStatus().get(5, TimeUnit.SECONDS));
+        verify(api, times(1)).CreateUserIdentity(any(), any(), any(), any());
+    }
+
+    @Test
+    void whenSnapshotCorrupt_thenBootstraps() throws Exception {
+        Files.writeString(snapshot, "{not json");
+
+        assertEquals(SnapshotStatus.BOOTSTRAPPED, aManager().withSnapshot(snapshot).build().snapshotStatus().get());
+    }
+
+    @Test
+    void createsUserAndAgentIdentitiesConcurrently() {
+        CountDownLatch agentStarted = new CountDownLatch(1);
+        when(api.CreateAgentIdentity(any(), any(), any(), any())).thenAnswer(i -> {
+            agentStarted.countDown();
+            return validResult(AGENT_DID);
+        });
+        when(api.CreateUserIdentity(any(), any(), any(), any())).thenAnswer(i ->
+                agentStarted.await(5, TimeUnit.SECONDS) ? validResult(USER_DID) : errorResult("not concurrent"));
+
+        SimpleIdentityManager manager = aManager().build();
+
+        assertEquals(USER_DID, manager.userIdentity().did());
+        assertEquals(AGENT_DID, manager.agentIdentity().did());
+    }
+
+    @Test
+    void whenBootstrapFails_thenBuildThrows() {
+        when(api.CreateAgentIdentity(any(), any(), any(), any())).thenReturn(errorResult("boom"));
+
+        SimpleIdentityException e = assertThrows(SimpleIdentityException.class, () -> aManager().build());
+        assertTrue(e.getMessage().contains("boom"));
+        verify(api, never()).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void whenBootstrapTooSlow_thenBuildTimesOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(api.CreateUserIdentity(any(), any(), any(), any())).thenAnswer(i -> {
+            release.await(5, TimeUnit.SECONDS);
+            return validResult(USER_DID);
+        });
+        try {
+            SimpleIdentityException e = assertThrows(SimpleIdentityException.class,
+                    () -> aManager().withBuildTimeout(Duration.ofMillis(50)).build());
+            assertTrue(e.getMessage().contains("not completed within"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void buildAsyncCompletesWithBootstrappedManager() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SimpleIdentityManager manager = aManager().withBootstrapExecutor(executor).buildAsync().get(5, TimeUnit.SECONDS);
+
+            assertEquals(USER_DID, manager.userIdentity().did());
+            assertEquals(AGENT_DID, manager.agentIdentity().did());
+            assertEquals(SnapshotStatus.NOT_CONFIGURED, manager.snapshotStatus().get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void whenBuilderChangedAfterBuildAsync_thenBuildUsesSettingsAtCall() throws Exception {
+        List<Runnable> tasks = new CopyOnWriteArrayList<>();
+        SimpleIdentityManager.Builder builder = aManager().withTokenCache(0.5).withBootstrapExecutor(tasks::add);
+        CompletableFuture<SimpleIdentityManager> future = builder.buildAsync();
+
+        builder.withAgentKeyName("otherKey").withAuthDelegationID("#deleg-1").withBootstrapExecutor(Runnable::run);
+        while (!future.isDone()) {
+            tasks.remove(0).run();
+        }
+
+        SimpleIdentityManager manager = future.get();
+        verify(api).CreateAgentIdentity(any(), eq("aKey"), any(), any());
+        verify(api).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), eq("#deleg-0"));
+        assertNotSame(manager.tokenCache(), builder.build().tokenCache());
+    }
+
+    @Test
+    void whenBootstrapFails_thenBuildAsyncCompletesExceptionally() {
+        when(api.CreateUserIdentity(any(), any(), any(), any())).thenReturn(errorResult("boom"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> aManager().buildAsync().get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof SimpleIdentityException);
+    }
+
+    @Test
+    void whenDelegateIfAbsentAndDelegationInDocument_thenSkipsDelegationWrite() throws Exception {
+        when(resolver.discover(USER_DID)).thenReturn(aDidDocument(USER_DID,
+                aField("delegateAuthentication", aDelegation("#deleg-0", AGENT_DID + "#agent-0", "proof", false))));
+
+        SimpleIdentityManager manager = aManager().withDelegateIfAbsent().build();
+
+        verify(api, never()).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        assertEquals(new DelegateIfAbsent.Stats(1, 0), manager.delegationStats());
+        assertEquals(new DelegateIfAbsent.Stats(0, 0), aManager().build().delegationStats());
+    }
+
+    @Test
+    void whenTwinInRegistry_thenNotCreatedAgain() throws Exception {
+        when(api.CreateTwinIdentity(any(), any(), any(), any())).thenReturn(validResult("did:iotics:twin"));
+        try (TwinRegistry registry = aTwinRegistry("agentSeed")) {
+            SimpleIdentityManager manager = aManager().withTwinRegistry(registry).build();
+
+            Identity twin = manager.newTwinIdentity("tKey", "#twin");
+
+            assertEquals(twin, manager.newTwinIdentity("tKey", "#twin"));
+            assertEquals(twin, registry.get("tKey"));
+            verify(api, times(1)).CreateTwinIdentity(any(), any(), any(), any());
+            manager.newTwinIdentity("tKey", "#other");
+            verify(api, times(2)).CreateTwinIdentity(any(), any(), any(), any());
+        }
+    }
+
+    @Test
+    void whenPlainTwinInRegistry_thenTwinWithDelegationStillCreated() throws Exception {
+        when(api.CreateTwinIdentity(any(), any(), any(), any())).thenReturn(validResult("did:iotics:twin"));
+        when(api.CreateTwinDidWithControlDelegation(any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(validResult("did:iotics:delegated"));
+        try (TwinRegistry registry = aTwinRegistry("agentSeed")) {
+            SimpleIdentityManager manager = aManager().withTwinRegistry(registry).build();
+            manager.newTwinIdentity("tKey", "#c-deleg");
+
+            Identity twin = manager.newTwinIdentityWithControlDelegation("tKey", "#c-deleg");
+
+            assertEquals("did:iotics:delegated", twin.did());
+            assertEquals(twin, manager.newTwinIdentityWithControlDelegation("tKey", "#c-deleg"));
+            verify(api, times(1)).CreateTwinDidWithControlDelegation(any(), any(), any(), any(), any(), any(), any());
+        }
+    }
+
+    @Test
+    void whenTwinRegistryOfAnotherAgent_thenBuildFails() throws Exception {
+        try (TwinRegistry registry = aTwinRegistry("otherSeed")) {
+            assertThrows(IllegalArgumentException.class, () -> aManager().withTwinRegistry(registry).build());
+        }
+    }
+
+    @Test
+    void whenJavaTokenEngine_thenTokensMintedWithoutNativeCalls() {
+        SimpleIdentityManager manager = aManager()
+                .withAgentSeed("00112233445566778899aabbccddeeff")
+                .withExperimentalJavaTokenEngine()
+                .build();
+
+        String token = manager.newAuthenticationToken(Duration.ofSeconds(30), "aud");
+
+        assertEquals(3, token.split("\\.").length);
+        assertEquals(USER_DID, new JWT(token).sub());
+        verify(api, never()).CreateAgentAuthToken(any(), any(), any(), any(), any(), any(), anyLong());
+    }
+
+    private TwinRegistry aTwinRegistry(String agentSeed) throws IOException {
+        return TwinRegistry.Builder.aTwinRegistry()
+                .withFile(dir.resolve("twins"))
+                .withOwner("http://localhost:9044", agentSeed)
+                .build();
+    }
+
+    private SimpleIdentityManager.Builder aManager() {
+        return SimpleIdentityManager.Builder.anIdentityManager()
+                .withSdkApi(api)
+                .withResolverClient(resolver)
+                .withResolverAddress("http://localhost:9044")
+                .withUserSeed("userSeed")
+                .withAgentSeed("agentSeed")
+                .withUserKeyName("uKey")
+                .withAgentKeyName("aKey");
+    }
+}
@@ -7,9 +7,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import smartrics.iotics.identity.jna.SdkApi;
 
 import java.time.Duration;
-
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static smartrics.iotics.identity.DataFactory.*;
 
@@ -218,4 +223,66 @@ public class SimpleIdentityTest {
                 "#foobar");
     }
 
+    @Test
+    void whenCreateTwinIdentitiesWithControlDelegation_thenReportsEachOutcomeInOrder() {
+        SimpleIdentity si = new SimpleIdentity(sdkApi, validUrl(), "some seed");
+        Identity id = aValidAgentIdentity();
+        when(sdkApi.CreateTwinDidWithControlDelegation(any(), any(), any(), any(), any(), any(), any())).thenAnswer(i -> {
+            String keyName = i.getArgument(5);
+            return keyName.equals("bad") ? errorResult("some error") : validResult("did:" + keyName);
+        });
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+
+        BulkResult result = si.CreateTwinIdentitiesWithControlDelegation(id, List.of("t1", "bad", "t2"), "#twin", 2,
+                (completed, total, item) -> progress.add(completed));
+
+        assertEquals(List.of("t1", "bad", "t2"), result.items().stream().map(BulkResult.Item::keyName).collect(Collectors.toList()));
+        assertEquals("did:t2", result.items().get(2).identity().did());
+        assertEquals(1, result.failures().size());
+        assertTrue(result.failures().get(0).error() instanceof SimpleIdentityException);
+        assertEquals(2, result.successes().size());
+        assertEquals(3, progress.size());
+        assertTrue(progress.containsAll(List.of(1, 2, 3)));
+    }
+
+    @Test
+    void whenCreateTwinIdentitiesWithControlDelegationThrowsError_thenReportsItAgainstItsItemOnly() {
+        SimpleIdentity si = new SimpleIdentity(sdkApi, validUrl(), "some seed");
+        Identity id = aValidAgentIdentity();
+        when(sdkApi.CreateTwinDidWithControlDelegation(any(), any(), any(), any(), any(), any(), any())).thenAnswer(i -> {
+            String keyName = i.getArgument(5);
+            if (keyName.equals("bad")) {
+                throw new AssertionError("some error");
+            }
+            return validResult("did:" + keyName);
+        });
+
+        BulkResult result = si.CreateTwinIdentitiesWithControlDelegation(id, List.of("t1", "bad", "t2"), "#twin", 2, null);
+
+        assertEquals(2, result.successes().size());
+        assertEquals(1, result.failures().size());
+        assertEquals("bad", result.failures().get(0).keyName());
+        assertTrue(result.failures().get(0).error() instanceof AssertionError);
+    }
+
+    @Test
+    void whenCreateTwinIdentitiesWithControlDelegation_thenCapsParallelism() {
+        SimpleIdentity si = new SimpleIdentity(sdkApi, validUrl(), "some seed");
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(sdkApi.CreateTwinDidWithControlDelegation(any(), any(), any(), any(), any(), any(), any())).thenAnswer(i -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            inFlight.decrementAndGet();
+            return validResult("twin did");
+        });
+        List<String> keyNames = IntStream.range(0, 40).mapToObj(i -> "t" + i).collect(Collectors.toList());
+
+        BulkResult result = si.CreateTwinIdentitiesWithControlDelegation(aValidAgentIdentity(), keyNames, "#twin", 3, null);
+
+        assertFalse(result.hasFailures());
+        assertEquals(40, result.successes().size());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
 }
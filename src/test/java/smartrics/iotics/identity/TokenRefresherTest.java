@@ -0,0 +1,91 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenRefresherTest {
+
+    private final TokenRefresher refresher = new TokenRefresher(2);
+
+    @AfterEach
+    void tearDown() {
+        refresher.close();
+    }
+
+    @Test
+    void invalidJitterFraction() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenRefresher(null, 1, java.time.Clock.systemUTC()));
+    }
+
+    @Test
+    void whenRegistered_thenRenewsAheadOfRefreshTime() throws Exception {
+        MutableClock clock = new MutableClock(Instant.ofEpochSecond(1_000_000));
+        AuthTokenCache cache = new AuthTokenCache(0.5, clock);
+        AtomicInteger mints = new AtomicInteger();
+        Duration expiry = Duration.ofMinutes(10);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (TokenRefresher clocked = new TokenRefresher(scheduler, 0.1, clock)) {
+            TokenRefresher.Registration r = clocked.register(cache, "aud", expiry,
+                    () -> "token-" + mints.incrementAndGet());
+
+            waitFor(() -> clocked.stats().renewals() == 1 && r.nextRunAt().isAfter(clock.instant()), Duration.ofSeconds(5));
+            Instant refreshAt = clock.instant().plus(expiry.dividedBy(2));
+            assertFalse(r.nextRunAt().isAfter(refreshAt));
+            assertFalse(r.nextRunAt().isBefore(refreshAt.minus(expiry.dividedBy(10))));
+            assertEquals("token-1", cache.get("aud", expiry, () -> fail("caller should not mint")));
+            assertEquals(1, clocked.stats().registrations());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void whenRenewalFails_thenCountsMissedAndRetries() throws Exception {
+        AuthTokenCache cache = new AuthTokenCache(0.5);
+        AtomicInteger attempts = new AtomicInteger();
+
+        refresher.register(cache, "aud", Duration.ofSeconds(10), () -> {
+            attempts.incrementAndGet();
+            throw new SimpleIdentityException("boom");
+        });
+
+        waitFor(() -> attempts.get() >= 2, Duration.ofSeconds(5));
+        assertTrue(refresher.stats().missed() >= 1);
+        assertEquals(0, refresher.stats().renewals());
+    }
+
+    @Test
+    void whenRegistrationClosed_thenStopsRenewing() throws Exception {
+        AuthTokenCache cache = new AuthTokenCache(0.5);
+        AtomicInteger mints = new AtomicInteger();
+        Duration expiry = Duration.ofMillis(200);
+
+        TokenRefresher.Registration r = refresher.register(cache, "aud", expiry, () -> "token-" + mints.incrementAndGet());
+        waitFor(() -> mints.get() >= 1, Duration.ofSeconds(5));
+        r.close();
+        int count = mints.get();
+        Thread.sleep(400);
+
+        assertTrue(mints.get() <= count + 1);
+        assertEquals(0, refresher.stats().registrations());
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within " + timeout);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
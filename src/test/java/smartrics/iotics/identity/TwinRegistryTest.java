@@ -0,0 +1,270 @@
+package smartrics.iotics.identity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TwinRegistryTest {
+
+    private static final String RESOLVER = "http://localhost:9044";
+    private static final String AGENT_SEED = "agentSeed";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void whenPut_thenGetReturnsIdentity() throws IOException {
+        try (TwinRegistry registry = open(dir.resolve("twins"))) {
+            registry.put(twin(1));
+            registry.put(new Identity("k-é", "#n", "did:iotics:ü"));
+
+            assertEquals(twin(1), registry.get("k1"));
+            assertEquals(new Identity("k-é", "#n", "did:iotics:ü"), registry.get("k-é"));
+            assertNull(registry.get("k2"));
+            assertEquals(2, registry.size());
+        }
+    }
+
+    @Test
+    void whenReopened_thenRebuildsIndexFromLog() throws IOException {
+        Path file = dir.resolve("twins");
+        try (TwinRegistry registry = open(file)) {
+            for (int i = 0; i < 100; i++) {
+                registry.put(twin(i));
+            }
+            registry.put(new Identity("k3", "#other", "did:iotics:other"));
+            registry.remove("k5");
+        }
+        try (TwinRegistry registry = open(file)) {
+            assertEquals(99, registry.size());
+            assertEquals(102, registry.stats().records());
+            assertEquals(twin(1), registry.get("k1"));
+            assertEquals(new Identity("k3", "#other", "did:iotics:other"), registry.get("k3"));
+            assertNull(registry.get("k5"));
+        }
+    }
+
+    @Test
+    void whenSameIdentityPutAgain_thenNothingAppended() throws IOException {
+        try (TwinRegistry registry = open(dir.resolve("twins"))) {
+            registry.put(twin(1));
+            long used = registry.stats().usedBytes();
+
+            registry.put(twin(1));
+
+            assertEquals(used, registry.stats().usedBytes());
+            assertEquals(1, registry.stats().records());
+        }
+    }
+
+    @Test
+    void whenRemoved_thenAbsentAndCanBePutAgain() throws IOException {
+        try (TwinRegistry registry = open(dir.resolve("twins"))) {
+            registry.put(twin(1));
+
+            assertTrue(registry.remove("k1"));
+            assertFalse(registry.remove("k1"));
+            assertNull(registry.get("k1"));
+            assertEquals(0, registry.size());
+
+            registry.put(twin(1));
+            assertEquals(twin(1), registry.get("k1"));
+            assertEquals(1, registry.size());
+        }
+    }
+
+    @Test
+    void whenRecordTorn_thenDroppedAtOpenAndOverwritten() throws IOException {
+        Path file = dir.resolve("twins");
+        long firstEnd;
+        try (TwinRegistry registry = open(file)) {
+            registry.put(twin(1));
+            firstEnd = registry.stats().usedBytes();
+            registry.put(twin(2));
+            registry.put(twin(3));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(firstEnd + 12);
+            raf.write(raf.read() ^ 0xFF);
+        }
+        try (TwinRegistry registry = open(file)) {
+            assertEquals(1, registry.size());
+            assertEquals(firstEnd, registry.stats().usedBytes());
+            assertNull(registry.get("k3"));
+            registry.put(twin(4));
+        }
+        try (TwinRegistry registry = open(file)) {
+            assertEquals(2, registry.size());
+            assertEquals(twin(4), registry.get("k4"));
+            assertNull(registry.get("k3"));
+        }
+    }
+
+    @Test
+    void whenFieldTooLong_thenRejectedWithoutTouchingTheLog() throws IOException {
+        try (TwinRegistry registry = open(dir.resolve("twins"))) {
+            registry.put(twin(1));
+            TwinRegistry.Stats stats = registry.stats();
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> registry.put(new Identity("k2", "#twin", "d".repeat(0x10000))));
+            assertThrows(IllegalArgumentException.class, () -> registry.put(twin(2), "#".repeat(0x10000)));
+
+            assertEquals(stats, registry.stats());
+            assertNull(registry.get("k2"));
+            registry.put(twin(2));
+            assertEquals(twin(2), registry.get("k2"));
+        }
+    }
+
+    @Test
+    void whenFull_thenFileAndIndexGrow() throws IOException {
+        Path file = dir.resolve("twins");
+        try (TwinRegistry registry = TwinRegistry.Builder.aTwinRegistry().withOwner(RESOLVER, AGENT_SEED)
+                .withFile(file).withInitialFileSize(64).withExpectedEntries(1).build()) {
+            for (int i = 0; i < 20_000; i++) {
+                registry.put(twin(i));
+            }
+            assertEquals(20_000, registry.size());
+            assertTrue(registry.stats().fileBytes() >= registry.stats().usedBytes());
+            for (int i = 0; i < 20_000; i++) {
+                assertEquals(twin(i), registry.get("k" + i));
+            }
+        }
+        try (TwinRegistry registry = open(file)) {
+            assertEquals(20_000, registry.size());
+            assertEquals(twin(19_999), registry.get("k19999"));
+        }
+    }
+
+    @Test
+    void whenCompacted_thenOnlyLiveRecordsKept() throws IOException {
+        Path file = dir.resolve("twins");
+        try (TwinRegistry registry = open(file)) {
+            for (int i = 0; i < 1000; i++) {
+                registry.put(twin(i));
+                registry.put(new Identity("k" + i, "#v2", "did:iotics:v2-" + i));
+            }
+            for (int i = 0; i < 500; i++) {
+                registry.remove("k" + i);
+            }
+            long used = registry.stats().usedBytes();
+
+            registry.compact();
+
+            assertEquals(new TwinRegistry.Stats(500, 500, registry.stats().usedBytes(), Files.size(file)), registry.stats());
+            assertTrue(registry.stats().usedBytes() < used / 3);
+            assertNull(registry.get("k1"));
+            assertEquals(new Identity("k999", "#v2", "did:iotics:v2-999"), registry.get("k999"));
+            registry.put(twin(1));
+        }
+        try (TwinRegistry registry = open(file)) {
+            assertEquals(501, registry.size());
+            assertEquals(twin(1), registry.get("k1"));
+            assertEquals(new Identity("k500", "#v2", "did:iotics:v2-500"), registry.get("k500"));
+        }
+    }
+
+    @Test
+    void whenConcurrentReadsAndWrites_thenConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (TwinRegistry registry = open(dir.resolve("twins"))) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int base = t * 5000;
+                futures.add(executor.submit(() -> {
+                    for (int i = base; i < base + 5000; i++) {
+                        registry.put(twin(i));
+                        assertEquals(twin(i), registry.get("k" + i));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            assertEquals(20_000, registry.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void whenFileNotARegistry_thenFailsToOpen() throws IOException {
+        Path file = dir.resolve("twins");
+        Files.writeString(file, "not a registry");
+
+        assertThrows(IOException.class, () -> open(file));
+    }
+
+    @Test
+    void whenClosed_thenRejectsCalls() throws IOException {
+        TwinRegistry registry = open(dir.resolve("twins"));
+        registry.close();
+        registry.close();
+
+        assertThrows(IllegalStateException.class, () -> registry.get("k1"));
+        assertThrows(IllegalStateException.class, () -> registry.put(twin(1)));
+    }
+
+    @Test
+    void whenOpenedForAnotherOwner_thenFailsToOpen() throws IOException {
+        Path file = dir.resolve("twins");
+        open(file).close();
+
+        IOException e = assertThrows(IOException.class, () -> TwinRegistry.Builder.aTwinRegistry()
+                .withFile(file).withOwner(RESOLVER, "otherSeed").build());
+        assertTrue(e.getMessage().contains("another agent"));
+        assertThrows(IOException.class, () -> TwinRegistry.Builder.aTwinRegistry()
+                .withFile(file).withOwner("http://other:9044", AGENT_SEED).build());
+        assertThrows(NullPointerException.class, () -> TwinRegistry.Builder.aTwinRegistry().withFile(file).build());
+    }
+
+    @Test
+    void whenPutWithControlDelegation_thenOnlyFoundWithSameDelegation() throws IOException {
+        Path file = dir.resolve("twins");
+        try (TwinRegistry registry = open(file)) {
+            registry.put(twin(1));
+            registry.put(twin(2), "#deleg-0");
+
+            assertEquals(twin(1), registry.get("k1", null));
+            assertNull(registry.get("k1", "#deleg-0"));
+            assertEquals(twin(2), registry.get("k2", "#deleg-0"));
+            assertNull(registry.get("k2", null));
+            assertNull(registry.get("k2", "#deleg-1"));
+            assertEquals(twin(2), registry.get("k2"));
+
+            registry.put(twin(2), "#deleg-0");
+            assertEquals(2, registry.stats().records());
+            registry.put(twin(2));
+            assertEquals(3, registry.stats().records());
+            assertEquals(twin(2), registry.get("k2", null));
+        }
+        try (TwinRegistry registry = open(file)) {
+            registry.compact();
+            assertEquals(twin(2), registry.get("k2", null));
+            assertNull(registry.get("k2", "#deleg-0"));
+        }
+        try (TwinRegistry registry = open(file)) {
+            assertEquals(2, registry.size());
+        }
+    }
+
+    private static TwinRegistry open(Path file) throws IOException {
+        return TwinRegistry.Builder.aTwinRegistry().withOwner(RESOLVER, AGENT_SEED).withFile(file).build();
+    }
+
+    private static Identity twin(int i) {
+        return new Identity("k" + i, "#twin", "did:iotics:twin" + i);
+    }
+}
@@ -0,0 +1,88 @@
+package smartrics.iotics.identity.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DerivedKeyCacheTest {
+
+    private static final String SEED = "00112233445566778899aabbccddeeff";
+
+    @Test
+    void whenSameKeyRequestedTwice_thenDerivesOnce() {
+        DerivedKeyCache cache = DerivedKeyCache.Builder.aDerivedKeyCache().build();
+
+        assertEquals(cache.privateKey(SEED, "k", KeyPurpose.AGENT).getD(), cache.privateKey(SEED, "k", KeyPurpose.AGENT).getD());
+        assertEquals(SeedKeys.privateKey(SEED, "k", KeyPurpose.AGENT).getD(), cache.privateKey(SEED, "k", KeyPurpose.AGENT).getD());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(2, cache.stats().hits());
+    }
+
+    @Test
+    void keysAreDistinctPerSeedNameAndPurpose() {
+        DerivedKeyCache cache = DerivedKeyCache.Builder.aDerivedKeyCache().build();
+
+        cache.privateKey(SEED, "k", KeyPurpose.AGENT);
+        cache.privateKey(SEED, "k", KeyPurpose.TWIN);
+        cache.privateKey(SEED, "k2", KeyPurpose.AGENT);
+        cache.privateKey("ffeeddccbbaa99887766554433221100", "k", KeyPurpose.AGENT);
+
+        assertEquals(4, cache.stats().size());
+    }
+
+    @Test
+    void whenInvalidated_thenDerivedAgain() {
+        DerivedKeyCache cache = DerivedKeyCache.Builder.aDerivedKeyCache().build();
+        cache.privateKey(SEED, "k", KeyPurpose.AGENT);
+        DerivedKeyCache.DerivedKey derived = cache.peek(SEED, "k", KeyPurpose.AGENT);
+
+        cache.invalidate(SEED, "k", KeyPurpose.AGENT);
+
+        assertTrue(derived.isZeroed());
+        assertNull(derived.privateKey());
+        assertNull(cache.peek(SEED, "k", KeyPurpose.AGENT));
+        cache.privateKey(SEED, "k", KeyPurpose.AGENT);
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void whenMaximumEntriesExceeded_thenEvicts() {
+        DerivedKeyCache cache = DerivedKeyCache.Builder.aDerivedKeyCache().withMaximumEntries(1).build();
+        cache.privateKey(SEED, "k1", KeyPurpose.AGENT);
+        DerivedKeyCache.DerivedKey derived = cache.peek(SEED, "k1", KeyPurpose.AGENT);
+
+        cache.privateKey(SEED, "k2", KeyPurpose.AGENT);
+
+        assertTrue(derived.isZeroed());
+        assertEquals(1, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+        assertNull(cache.peek(SEED, "k1", KeyPurpose.AGENT));
+    }
+
+    @Test
+    void whenInvalidSeed_thenThrows() {
+        DerivedKeyCache cache = DerivedKeyCache.Builder.aDerivedKeyCache().build();
+
+        assertThrows(IllegalArgumentException.class, () -> cache.privateKey("zz", "k", KeyPurpose.AGENT));
+    }
+
+    @Test
+    void whenConcurrentLookups_thenDerivesOnce() {
+        DerivedKeyCache cache = DerivedKeyCache.Builder.aDerivedKeyCache().build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CompletableFuture.allOf(IntStream.range(0, 32)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> cache.privateKey(SEED, "k", KeyPurpose.AGENT), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, cache.stats().misses());
+    }
+}
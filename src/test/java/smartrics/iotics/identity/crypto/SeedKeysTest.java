@@ -0,0 +1,44 @@
+package smartrics.iotics.identity.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeedKeysTest {
+
+    // BIP39 entropy of "abandon abandon ... about"
+    private static final String SEED = "00000000000000000000000000000000";
+
+    @Test
+    void derivesFromBip39SeedAndPath() {
+        BigInteger d = SeedKeys.privateKey(SEED, "agent-key", KeyPurpose.AGENT).getD();
+
+        assertEquals(new BigInteger("015c1eeff11a657a06bc536397f30249b12de2ee426ba3857ab5b0e9e5f14f1d", 16), d);
+    }
+
+    @Test
+    void derivationDependsOnKeyNameAndPurpose() {
+        BigInteger agent = SeedKeys.privateKey(SEED, "k", KeyPurpose.AGENT).getD();
+
+        assertEquals(agent, SeedKeys.privateKey(SEED, "k", KeyPurpose.AGENT).getD());
+        assertNotEquals(agent, SeedKeys.privateKey(SEED, "k2", KeyPurpose.AGENT).getD());
+        assertNotEquals(agent, SeedKeys.privateKey(SEED, "k", KeyPurpose.USER).getD());
+        assertEquals("iotics/0/twin/k", SeedKeys.path("k", KeyPurpose.TWIN));
+    }
+
+    @Test
+    void publicKeyIsUncompressed() {
+        byte[] pub = SeedKeys.publicKey(SeedKeys.privateKey(SEED, "k", KeyPurpose.AGENT));
+
+        assertEquals(65, pub.length);
+        assertEquals(0x04, pub[0]);
+    }
+
+    @Test
+    void rejectsInvalidSeeds() {
+        assertThrows(IllegalArgumentException.class, () -> SeedKeys.privateKey("not hex", "k", KeyPurpose.AGENT));
+        assertThrows(IllegalArgumentException.class, () -> SeedKeys.privateKey("0011", "k", KeyPurpose.AGENT));
+    }
+}
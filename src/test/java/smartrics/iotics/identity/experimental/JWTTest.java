@@ -5,6 +5,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 class JWTTest {
 
     @Test
@@ -61,4 +64,67 @@ class JWTTest {
         String expectedToString = "JWT{header='{\"alg\":\"HS256\"}', payload='{\"exp\":1600000000,\"iat\":1500000000}', signature='signaturePart'}";
         assertEquals(expectedToString, jwt.toString());
     }
+
+    @Test
+    void claimsAccessorsReadRegisteredClaims() {
+        JWT jwt = new JWT(token("{\"aud\":\"https://a/?x=1\",\"exp\":1600000000,\"iat\":1500000000," +
+                "\"iss\":\"did:iotics:a#k\",\"sub\":\"did:iotics:u\"}"));
+
+        assertAll(
+                () -> assertEquals(1600000000L, jwt.exp()),
+                () -> assertEquals(1500000000L, jwt.iat()),
+                () -> assertEquals("https://a/?x=1", jwt.aud()),
+                () -> assertEquals("did:iotics:a#k", jwt.iss()),
+                () -> assertEquals("did:iotics:u", jwt.sub())
+        );
+    }
+
+    @Test
+    void claimsScanSkipsOtherValuesAndHandlesEscapes() {
+        JWT jwt = new JWT(token("{ \"nested\" : {\"exp\": 1, \"s\":\"}\\\"]\"}, \"list\":[1,[2],{\"a\":null}], " +
+                "\"flag\":true, \"aud\":[\"first\",\"second\"], \"sub\":\"a\\\"b\\u00e9\\n\", \"exp\":1.6e9 }"));
+
+        assertAll(
+                () -> assertEquals(1600000000L, jwt.exp()),
+                () -> assertNull(jwt.iat()),
+                () -> assertEquals("first", jwt.aud()),
+                () -> assertEquals("a\"b\u00e9\n", jwt.sub()),
+                () -> assertNull(jwt.iss())
+        );
+    }
+
+    @Test
+    void audienceArrayNotStartingWithStringIsSkipped() {
+        assertAll(
+                () -> assertNull(new JWT(token("{\"aud\":[1,\"x\"],\"exp\":1600000000}")).aud()),
+                () -> assertEquals(1600000000L, new JWT(token("{\"aud\":[1,\"x\"],\"exp\":1600000000}")).exp()),
+                () -> assertEquals(1600000000L, new JWT(token("{\"aud\":[null,\"x\"],\"exp\":1600000000}")).exp()),
+                () -> assertEquals(1600000000L, new JWT(token("{\"aud\":[{\"a\":[1]},\"x\"],\"exp\":1600000000}")).exp()),
+                () -> assertEquals(1600000000L, new JWT(token("{\"aud\":[],\"exp\":1600000000}")).exp())
+        );
+    }
+
+    @Test
+    void decodesBase64UrlAndPaddedBase64() {
+        String payload = "{\"sub\":\"\u00ff\u00fe??>>\"}";
+        String url = Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        String std = Base64.getEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(payload, new JWT("e30." + url + ".s").payload());
+        assertEquals(payload, new JWT("e30." + std + ".s").payload());
+        assertEquals("\u00ff\u00fe??>>", new JWT("e30." + url + ".s").sub());
+    }
+
+    @Test
+    void invalidPayloadFailsOnAccess() {
+        JWT jwt = new JWT("e30.!!!.s");
+
+        assertThrows(IllegalArgumentException.class, jwt::payload);
+        assertThrows(IllegalArgumentException.class, () -> new JWT(token("not json")).exp());
+    }
+
+    private static String token(String payload) {
+        return "eyJhbGciOiJIUzI1NiJ9." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".sig";
+    }
 }
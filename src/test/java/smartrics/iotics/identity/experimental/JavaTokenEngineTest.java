@@ -0,0 +1,94 @@
+package smartrics.iotics.identity.experimental;
+
+import org.bitcoinj.core.Base58;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import smartrics.iotics.identity.LocalTokenVerifier;
+import smartrics.iotics.identity.crypto.KeyPurpose;
+import smartrics.iotics.identity.crypto.SeedKeys;
+import smartrics.iotics.identity.jna.JnaSdkApiInitialiser;
+import smartrics.iotics.identity.jna.SdkApi;
+import smartrics.iotics.identity.resolver.ResolverClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.when;
+
+class JavaTokenEngineTest {
+
+    private static final String SEED = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+    private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000L);
+
+    private final JavaTokenEngine engine = new JavaTokenEngine(Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void claimsMatchNativeLayout() {
+        String token = engine.createAgentAuthToken("did:iotics:agent", "agent-key", "#agent-0", SEED,
+                "did:iotics:user", "https://host/?a=1&b=<2>", Duration.ofSeconds(30));
+
+        assertEquals("{\"alg\":\"ES256\",\"typ\":\"JWT\"}", decode(token.split("\\.")[0]));
+        assertEquals("{\"aud\":\"https://host/?a=1\\u0026b=\\u003c2\\u003e\",\"exp\":1700000030,\"iat\":1700000000," +
+                "\"iss\":\"did:iotics:agent#agent-0\",\"sub\":\"did:iotics:user\"}", decode(token.split("\\.")[1]));
+    }
+
+    @Test
+    void tokensVerifyWithDerivedPublicKey() throws IOException {
+        String token = engine.createAgentAuthToken("did:iotics:agent", "agent-key", "agent-0", SEED,
+                "did:iotics:agent", "aud", Duration.ofSeconds(30));
+        String publicKey = Base58.encode(SeedKeys.publicKey(SeedKeys.privateKey(SEED, "agent-key", KeyPurpose.AGENT)));
+        ResolverClient resolver = Mockito.mock(ResolverClient.class);
+        when(resolver.discover("did:iotics:agent")).thenReturn(new ResolverClient.Result(
+                "{\"doc\":{\"id\":\"did:iotics:agent\",\"publicKey\":[{\"id\":\"#agent-0\",\"publicKeyBase58\":\"" +
+                        publicKey + "\"}]}}", "application/json", false));
+
+        LocalTokenVerifier.Verdict verdict = LocalTokenVerifier.Builder.aLocalTokenVerifier()
+                .withResolverClient(resolver)
+                .withClock(Clock.fixed(NOW, ZoneOffset.UTC))
+                .build()
+                .verify(token);
+
+        assertTrue(verdict.allowed(), verdict.reason());
+    }
+
+    @Test
+    void matchesNativeLibrary() throws Exception {
+        File lib = new File(System.getProperty("ioticsIdentityLibraryFile", "./lib/lib-iotics-id-sdk.so"));
+        assumeTrue(lib.isFile(), "native library not available");
+        SdkApi api = new JnaSdkApiInitialiser(lib.getAbsolutePath()).get();
+
+        String nativeToken = api.CreateAgentAuthToken("did:iotics:agent", "agent-key", "#agent-0", SEED,
+                "did:iotics:user", "https://host/?a=1&b=2", 30).value;
+        String[] parts = nativeToken.split("\\.");
+        String claims = decode(parts[1]);
+        long iat = Long.parseLong(claims.replaceAll(".*\"iat\":(\\d+).*", "$1"));
+
+        assertEquals(claims, new String(JavaTokenEngine.claims("did:iotics:agent", "#agent-0", "did:iotics:user",
+                "https://host/?a=1&b=2", iat, iat + 30), StandardCharsets.UTF_8));
+        ECPrivateKeyParameters key = SeedKeys.privateKey(SEED, "agent-key", KeyPurpose.AGENT);
+        byte[] sig = Base64.getUrlDecoder().decode(parts[2]);
+        ECDSASigner verifier = new ECDSASigner();
+        verifier.init(false, new ECPublicKeyParameters(SeedKeys.DOMAIN.getG().multiply(key.getD()), SeedKeys.DOMAIN));
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+        assertTrue(verifier.verifySignature(hash, new BigInteger(1, Arrays.copyOfRange(sig, 0, 32)),
+                new BigInteger(1, Arrays.copyOfRange(sig, 32, 64))));
+    }
+
+    private static String decode(String segment) {
+        return new String(Base64.getUrlDecoder().decode(segment), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,132 @@
+package smartrics.iotics.identity.jna;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import smartrics.iotics.identity.go.StringResult;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BulkheadSdkApiTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private SdkApi delegate;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        delegate = Mockito.mock(SdkApi.class);
+        executor = Executors.newCachedThreadPool();
+        when(delegate.CreateAgentIdentity(any(), any(), any(), any())).thenAnswer(i -> {
+            entered.countDown();
+            release.await();
+            return new StringResult("did:iotics:a", null);
+        });
+        when(delegate.CreateAgentAuthToken(any(), any(), any(), any(), any(), any(), anyLong()))
+                .thenReturn(new StringResult("token", null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void whenResolverPoolExhausted_thenTokensStillMinted() throws Exception {
+        BulkheadSdkApi api = aBulkhead().withResolverPermits(1).withQueueTimeout(Duration.ofSeconds(5)).build();
+        Future<StringResult> write = executor.submit(() -> api.CreateAgentIdentity("r", "k", "n", "s"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertEquals("token", api.CreateAgentAuthToken("a", "k", "n", "s", "u", "aud", 10).value);
+
+        assertEquals(0, api.stats(SdkApiMethod.Category.RESOLVER).available());
+        release.countDown();
+        assertEquals("did:iotics:a", write.get(5, TimeUnit.SECONDS).value);
+    }
+
+    @Test
+    void whenResolverPoolExhausted_thenVerificationWaitsButTokensStillMinted() throws Exception {
+        BulkheadSdkApi api = aBulkhead().withResolverPermits(1).withQueueTimeout(Duration.ofMillis(50)).build();
+        executor.submit(() -> api.CreateAgentIdentity("r", "k", "n", "s"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        StringResult allowed = api.IsAllowedFor("r", "token");
+
+        assertTrue(allowed.err.contains("timed out"));
+        assertEquals("token", api.CreateAgentAuthToken("a", "k", "n", "s", "u", "aud", 10).value);
+        assertEquals(0, api.stats(SdkApiMethod.Category.CRYPTO).rejected());
+    }
+
+    @Test
+    void whenQueueTimeoutElapses_thenErrorResultWithoutCall() throws Exception {
+        BulkheadSdkApi api = aBulkhead().withResolverPermits(1).withQueueTimeout(Duration.ofMillis(50)).build();
+        executor.submit(() -> api.CreateAgentIdentity("r", "k", "n", "s"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        StringResult result = api.CreateTwinIdentity("r", "k", "n", "s");
+        String delegation = api.UserDelegatesAuthenticationToAgent("r", "a", "b", "c", "d", "e", "f", "g", "h", "i");
+
+        assertNotNull(result.err);
+        assertTrue(result.err.contains("timed out"));
+        assertTrue(delegation.contains("timed out"));
+        verify(delegate, never()).CreateTwinIdentity(any(), any(), any(), any());
+        verify(delegate, never()).UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        assertEquals(2, api.stats(SdkApiMethod.Category.RESOLVER).rejected());
+    }
+
+    @Test
+    void recordsQueueingDelay() throws Exception {
+        BulkheadSdkApi api = aBulkhead().withResolverPermits(1).build();
+        executor.submit(() -> api.CreateAgentIdentity("r", "k", "n", "s"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Future<StringResult> queued = executor.submit(() -> api.CreateAgentIdentity("r", "k", "n", "s"));
+        while (api.stats(SdkApiMethod.Category.RESOLVER).waiting() == 0) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(20);
+
+        release.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+
+        BulkheadSdkApi.PoolStats stats = api.stats(SdkApiMethod.Category.RESOLVER);
+        assertEquals(2, stats.acquired());
+        assertEquals(0, stats.waiting());
+        assertEquals(1, stats.available());
+        assertTrue(stats.maxQueueNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void whenInterruptedWhileWaiting_thenErrorResult() throws Exception {
+        BulkheadSdkApi api = aBulkhead().withResolverPermits(1).build();
+        executor.submit(() -> api.CreateAgentIdentity("r", "k", "n", "s"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        Thread.currentThread().interrupt();
+        StringResult result = api.RecreateAgentIdentity("r", "k", "n", "s");
+
+        assertTrue(Thread.interrupted());
+        assertTrue(result.err.contains("interrupted"));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> aBulkhead().withCryptoPermits(0).build());
+        assertThrows(NullPointerException.class, () -> BulkheadSdkApi.Builder.aBulkheadSdkApi().build());
+    }
+
+    private BulkheadSdkApi.Builder aBulkhead() {
+        return BulkheadSdkApi.Builder.aBulkheadSdkApi().withDelegate(delegate);
+    }
+}
@@ -0,0 +1,144 @@
+package smartrics.iotics.identity.jna;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import smartrics.iotics.identity.go.PointerResult;
+import smartrics.iotics.identity.go.StringResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class FreeingSdkApiTest {
+
+    private StubLibrary stub;
+    private SdkNativeApi lib;
+    private SdkApi api;
+
+    @BeforeEach
+    void setUp() {
+        stub = new StubLibrary();
+        lib = mock(SdkNativeApi.class, stub);
+        api = new FreeingSdkApi(lib);
+    }
+
+    @Test
+    void whenCallReturnsValue_thenDecodesAndFreesIt() {
+        stub.value = "some token";
+
+        StringResult r = api.CreateAgentAuthToken("did", "kn", "n", "seed", "udid", "aud", 10);
+
+        assertEquals("some token", r.value);
+        assertNull(r.err);
+        assertEquals(1, stub.allocations);
+        assertTrue(stub.live.isEmpty());
+    }
+
+    @Test
+    void whenCallReturnsError_thenDecodesAndFreesIt() {
+        stub.err = "some error";
+
+        StringResult r = api.CreateUserIdentity("res", "kn", "n", "seed");
+
+        assertNull(r.value);
+        assertEquals("some error", r.err);
+        assertEquals(1, stub.allocations);
+        assertTrue(stub.live.isEmpty());
+    }
+
+    @Test
+    void whenDelegationReturnsError_thenDecodesAndFreesIt() {
+        stub.err = "delegation error";
+
+        String err = api.UserDelegatesAuthenticationToAgent("res",
+                "adid", "akn", "an", "as",
+                "udid", "ukn", "un", "us", "#deleg");
+
+        assertEquals("delegation error", err);
+        assertEquals(1, stub.allocations);
+        assertTrue(stub.live.isEmpty());
+    }
+
+    @Test
+    void whenDelegationSucceeds_thenNothingToFree() {
+        String err = api.TwinDelegatesControlToAgent("res",
+                "adid", "akn", "an", "as",
+                "tdid", "tkn", "tn", "ts", "#deleg");
+
+        assertNull(err);
+        assertEquals(0, stub.allocations);
+        assertEquals(0, stub.frees);
+    }
+
+    @Test
+    void whenManyCalls_thenEveryStringIsFreedExactlyOnce() {
+        stub.value = "value";
+        stub.err = "err";
+        for (int i = 0; i < 1000; i++) {
+            api.CreateDefaultSeed();
+            api.IsAllowedFor("res", "token");
+        }
+
+        assertEquals(4000, stub.allocations);
+        assertEquals(4000, stub.frees);
+        assertTrue(stub.live.isEmpty());
+    }
+
+    @Test
+    void whenValueIsUtf8_thenDecodesIt() {
+        stub.value = "café ✓";
+
+        assertEquals("café ✓", api.SeedBip39ToMnemonic("seed").value);
+    }
+
+    /**
+     * Stands in for the native library: allocates a fresh C string for each returned value and checks they are all
+     * released, once, via FreeUpCString.
+     */
+    private static final class StubLibrary implements Answer<Object> {
+        private final Set<Pointer> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        private String value;
+        private String err;
+        private int allocations;
+        private int frees;
+
+        @Override
+        public Object answer(InvocationOnMock invocation) {
+            Class<?> type = invocation.getMethod().getReturnType();
+            if (invocation.getMethod().getName().equals("FreeUpCString")) {
+                Pointer p = invocation.getArgument(0);
+                assertTrue(live.remove(p), "freeing a pointer not allocated or already freed");
+                frees++;
+                return null;
+            }
+            if (type == PointerResult.class) {
+                return new PointerResult(allocate(value), allocate(err));
+            }
+            if (type == Pointer.class) {
+                return allocate(err);
+            }
+            return null;
+        }
+
+        private Pointer allocate(String s) {
+            if (s == null) {
+                return null;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            Memory m = new Memory(bytes.length + 1);
+            m.write(0, bytes, 0, bytes.length);
+            m.setByte(bytes.length, (byte) 0);
+            live.add(m);
+            allocations++;
+            return m;
+        }
+    }
+}
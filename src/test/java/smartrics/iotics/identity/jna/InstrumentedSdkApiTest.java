@@ -0,0 +1,130 @@
+package smartrics.iotics.identity.jna;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import smartrics.iotics.identity.go.StringResult;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class InstrumentedSdkApiTest {
+
+    private SdkApi delegate;
+    private SdkApiStats stats;
+    private SdkApi api;
+
+    @BeforeEach
+    void setUp() {
+        delegate = Mockito.mock(SdkApi.class);
+        stats = new SdkApiStats();
+        api = new InstrumentedSdkApi(delegate, stats);
+    }
+
+    @Test
+    void countsCallsAndErrors() {
+        when(delegate.CreateDefaultSeed()).thenReturn(new StringResult("seed", null), new StringResult(null, "boom"));
+        when(delegate.UserDelegatesAuthenticationToAgent(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(null, "failed");
+
+        assertEquals("seed", api.CreateDefaultSeed().value);
+        assertEquals("boom", api.CreateDefaultSeed().err);
+        api.UserDelegatesAuthenticationToAgent("r", "a", "b", "c", "d", "e", "f", "g", "h", "i");
+        api.UserDelegatesAuthenticationToAgent("r", "a", "b", "c", "d", "e", "f", "g", "h", "i");
+
+        SdkApiStats.MethodStats seed = stats.snapshot(SdkApiMethod.CreateDefaultSeed);
+        assertEquals(2, seed.calls());
+        assertEquals(1, seed.errors());
+        assertEquals(0, seed.inFlight());
+        assertEquals(1, stats.snapshot(SdkApiMethod.UserDelegatesAuthenticationToAgent).errors());
+        assertEquals(2, stats.snapshot().size());
+    }
+
+    @Test
+    void countsThrowingCallsAsErrors() {
+        when(delegate.IsAllowedFor(any(), any())).thenThrow(new IllegalStateException("native crash"));
+
+        assertThrows(IllegalStateException.class, () -> api.IsAllowedFor("r", "t"));
+
+        assertEquals(1, stats.snapshot(SdkApiMethod.IsAllowedFor).errors());
+    }
+
+    @Test
+    void tracksInFlightCalls() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.IsAllowedFor(any(), any())).thenAnswer(i -> {
+            entered.countDown();
+            release.await();
+            return new StringResult("true", null);
+        });
+        Thread t = new Thread(() -> api.IsAllowedFor("r", "t"));
+        t.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, stats.snapshot(SdkApiMethod.IsAllowedFor).inFlight());
+        release.countDown();
+        t.join(5000);
+        assertEquals(0, stats.snapshot(SdkApiMethod.IsAllowedFor).inFlight());
+    }
+
+    @Test
+    void everyOperationIsForwardedAndReportedUnderItsName() throws Exception {
+        List<SdkApiMethod> reported = new ArrayList<>();
+        SdkApi recording = new InstrumentedSdkApi(delegate, new SdkApiMetrics() {
+            @Override
+            public void callStarted(SdkApiMethod method) {
+                reported.add(method);
+            }
+
+            @Override
+            public void callCompleted(SdkApiMethod method, long durationNanos, boolean error) {
+            }
+        });
+
+        for (Method m : SdkApi.class.getDeclaredMethods()) {
+            reported.clear();
+            Object[] args = new Object[m.getParameterCount()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = m.getParameterTypes()[i] == long.class ? 1L : "x";
+            }
+            m.invoke(recording, args);
+            assertEquals(List.of(SdkApiMethod.valueOf(m.getName())), reported, m.getName());
+            m.invoke(Mockito.verify(delegate), args);
+        }
+        assertEquals(SdkApi.class.getDeclaredMethods().length, SdkApiMethod.values().length);
+    }
+
+    @Test
+    void whenMetricsNone_thenInitialiserReturnsPlainApi() {
+        SdkApiInitialiser initialiser = () -> delegate;
+
+        assertSame(delegate, initialiser.instrumented(SdkApiMetrics.NONE));
+        assertTrue(initialiser.instrumented(stats) instanceof InstrumentedSdkApi);
+    }
+
+    @Test
+    void statsReadableThroughJmx() throws Exception {
+        when(delegate.CreateDefaultSeed()).thenReturn(new StringResult("seed", null));
+        api.CreateDefaultSeed();
+        ObjectName name = stats.register("test-" + System.nanoTime());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            TabularData calls = (TabularData) server.getAttribute(name, "Calls");
+            assertEquals(1L, calls.get(new Object[]{"CreateDefaultSeed"}).get("value"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
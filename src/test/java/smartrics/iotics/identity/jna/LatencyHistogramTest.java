@@ -0,0 +1,44 @@
+package smartrics.iotics.identity.jna;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBoundsContainTheirValues() {
+        for (long v : new long[]{0, 1, 7, 8, 9, 15, 16, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int i = LatencyHistogram.index(v);
+            assertTrue(v <= LatencyHistogram.upperBound(i), "value " + v);
+            assertTrue(i == 0 || v > LatencyHistogram.upperBound(i - 1), "value " + v);
+        }
+    }
+
+    @Test
+    void percentilesWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+
+        assertEquals(1000, h.count());
+        assertEquals(1_000_000, h.max());
+        assertEquals(500_500, h.mean());
+        assertEquals(500_000, h.percentile(0.5), 500_000 * 0.125);
+        assertEquals(990_000, h.percentile(0.99), 990_000 * 0.125);
+        assertEquals(1_000_000, h.percentile(1.0));
+    }
+
+    @Test
+    void emptyAndReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.99));
+
+        h.record(42);
+        h.reset();
+
+        assertEquals(0, h.count());
+        assertEquals(0, h.max());
+    }
+}
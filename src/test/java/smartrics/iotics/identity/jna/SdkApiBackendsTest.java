@@ -0,0 +1,63 @@
+package smartrics.iotics.identity.jna;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import smartrics.iotics.identity.go.StringResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SdkApiBackendsTest {
+
+    private static String stubPath;
+
+    @BeforeAll
+    static void buildStub() {
+        stubPath = StubLibrary.path();
+        assumeTrue(stubPath != null, "stub library can't be built in this environment");
+    }
+
+    @Test
+    void proxyBackendCallsLibraryAndFreesResults() {
+        verifyBackend(new JnaSdkApiInitialiser(stubPath).get());
+    }
+
+    @Test
+    void directBackendCallsLibraryAndFreesResults() {
+        verifyBackend(new DirectJnaSdkApiInitialiser(stubPath).get());
+    }
+
+    @Test
+    void whenOperationNotExported_thenBothBackendsFailOnCallOnly() {
+        SdkApi proxy = new JnaSdkApiInitialiser(stubPath).get();
+        SdkApi direct = new DirectJnaSdkApiInitialiser(stubPath).get();
+
+        assertThrows(UnsatisfiedLinkError.class, () -> proxy.CreateTwinIdentity("res", "k", "n", "s"));
+        assertThrows(UnsatisfiedLinkError.class, () -> direct.CreateTwinIdentity("res", "k", "n", "s"));
+        assertThrows(UnsatisfiedLinkError.class, () -> direct.RecreateTwinIdentity("res", "k", "n", "s"));
+    }
+
+    @Test
+    void directBackendBindsOneLibraryOnly() {
+        new DirectJnaSdkApiInitialiser(stubPath);
+        assertThrows(IllegalStateException.class, () -> new DirectJnaSdkApiInitialiser("/some/other/lib.so"));
+    }
+
+    private static void verifyBackend(SdkApi api) {
+        StubLibrary.Counters counters = StubLibrary.counters(stubPath);
+        long allocations = counters.StubAllocations();
+        long frees = counters.StubFrees();
+
+        StringResult token = api.CreateAgentAuthToken("did", "kn", "n", "seed", "udid", "aud", 10);
+        StringResult did = api.CreateTwinDidWithControlDelegation("res", "adid", "akn", "an", "as", "tkn", "tn");
+        String err = api.UserDelegatesAuthenticationToAgent("res",
+                "adid", "akn", "an", "as", "udid", "ukn", "un", "us", "#deleg");
+
+        assertTrue(token.value.startsWith("eyJ"));
+        assertNull(token.err);
+        assertEquals("did:iotics:iotTwnDdKj8xhGzbPPjmZt7T9pyFKEeVrm5a", did.value);
+        assertNull(err);
+        assertEquals(2, counters.StubAllocations() - allocations);
+        assertEquals(2, counters.StubFrees() - frees);
+    }
+}
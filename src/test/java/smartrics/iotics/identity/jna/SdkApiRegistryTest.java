@@ -0,0 +1,63 @@
+package smartrics.iotics.identity.jna;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SdkApiRegistryTest {
+
+    @Test
+    void loadsEachLibraryOnce() {
+        String stubPath = StubLibrary.path();
+        assumeTrue(stubPath != null, "stub library can't be built in this environment");
+        Set<SdkApi> apis = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture.allOf(IntStream.range(0, 16)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> apis.add(SdkApiRegistry.get(stubPath))))
+                .toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(1, apis.size());
+        assertSame(apis.iterator().next(), SdkApiRegistry.initialiser(stubPath).get());
+        SdkApiRegistry.Loaded loaded = SdkApiRegistry.loaded().get(stubPath);
+        assertNotNull(loaded);
+        assertSame(loaded.api(), apis.iterator().next());
+        assertFalse(loaded.loadTime().isNegative());
+        assertNotNull(SdkApiRegistry.get(stubPath).CreateDefaultSeed().value);
+    }
+
+    @Test
+    void loadsDifferentFormsOfOnePathOnce() {
+        String stubPath = StubLibrary.path();
+        assumeTrue(stubPath != null, "stub library can't be built in this environment");
+        Path relative = Path.of("").toAbsolutePath().relativize(Path.of(stubPath));
+        Path dotted = Path.of(stubPath).getParent().resolve("..").resolve("stub").resolve(Path.of(stubPath).getFileName());
+
+        SdkApi api = SdkApiRegistry.get(stubPath);
+
+        assertSame(api, SdkApiRegistry.get(relative.toString()));
+        assertSame(api, SdkApiRegistry.get(dotted.toString()));
+        assertFalse(SdkApiRegistry.loaded().containsKey(relative.toString()));
+    }
+
+    @Test
+    void libraryNamedDefaultIsNotTheDefaultLibrary() {
+        UnsatisfiedLinkError e = assertThrows(UnsatisfiedLinkError.class, () -> SdkApiRegistry.get(SdkApiRegistry.DEFAULT));
+        assertTrue(e.getMessage().contains(Path.of(SdkApiRegistry.DEFAULT).toAbsolutePath().toString()), e.getMessage());
+    }
+
+    @Test
+    void failedLoadsAreNotRemembered() {
+        String missing = "/no/such/lib-iotics-id-sdk.so";
+
+        assertThrows(UnsatisfiedLinkError.class, () -> SdkApiRegistry.get(missing));
+        assertThrows(UnsatisfiedLinkError.class, () -> SdkApiRegistry.get(missing));
+        assertFalse(SdkApiRegistry.loaded().containsKey(missing));
+    }
+}
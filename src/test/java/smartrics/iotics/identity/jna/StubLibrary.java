@@ -0,0 +1,58 @@
+package smartrics.iotics.identity.jna;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and loads the stub library in src/test/c, which exports the same symbols as the identity library.
+ */
+public final class StubLibrary {
+    private static final File SOURCE = new File("src/test/c/stub-iotics-id-sdk.c");
+    private static final File TARGET = new File("target/stub/lib-iotics-id-sdk-stub.so");
+
+    private StubLibrary() {
+    }
+
+    /**
+     * Compiles the stub with gcc, unless already compiled.
+     *
+     * @return the absolute path of the stub library or null if it can't be built in this environment
+     */
+    public static synchronized String path() {
+        if (!System.getProperty("os.name").toLowerCase().contains("nux")) {
+            return null;
+        }
+        if (!TARGET.exists() || TARGET.lastModified() < SOURCE.lastModified()) {
+            TARGET.getParentFile().mkdirs();
+            try {
+                Process p = new ProcessBuilder("gcc", "-shared", "-fPIC", "-O2",
+                        "-o", TARGET.getPath(), SOURCE.getPath())
+                        .inheritIO()
+                        .start();
+                if (!p.waitFor(60, TimeUnit.SECONDS) || p.exitValue() != 0) {
+                    return null;
+                }
+            } catch (IOException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return TARGET.getAbsolutePath();
+    }
+
+    public static Counters counters(String path) {
+        return Native.loadLibrary(path, Counters.class);
+    }
+
+    public interface Counters extends Library {
+        long StubAllocations();
+
+        long StubFrees();
+    }
+}
@@ -0,0 +1,119 @@
+package smartrics.iotics.identity.resolver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchDiscoveryTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void whenDiscoveringAll_thenReturnsResultPerDistinctDidInOrder() {
+        ResolverClient client = did -> {
+            if (did.endsWith("err")) {
+                throw new IOException("Network error");
+            }
+            return new ResolverClient.Result("doc of " + did, "application/json", false);
+        };
+
+        Map<String, ResolverClient.Result> results = client.discoverAll(List.of("did:1", "did:err", "did:2", "did:1"));
+
+        assertEquals(List.of("did:1", "did:err", "did:2"), List.copyOf(results.keySet()));
+        assertEquals("doc of did:2", results.get("did:2").content());
+        assertTrue(results.get("did:err").isErr());
+        assertTrue(results.get("did:err").content().contains("Network error"));
+    }
+
+    @Test
+    void whenDiscoveringAll_thenCapsLookupsInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ResolverClient client = new ResolverClient() {
+            @Override
+            public Result discover(String did) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Result> discoverAsync(String did) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return CompletableFuture.supplyAsync(() -> {
+                    sleep();
+                    inFlight.decrementAndGet();
+                    return new Result("doc", "application/json", false);
+                }, executor);
+            }
+        };
+        List<String> dids = IntStream.range(0, 50).mapToObj(i -> "did:" + i).collect(Collectors.toList());
+
+        Map<String, ResolverClient.Result> results = client.discoverAll(dids, 4);
+
+        assertEquals(50, results.size());
+        assertTrue(results.values().stream().noneMatch(ResolverClient.Result::isErr));
+        assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    void whenClientReturnsNullResult_thenReportedAsError() {
+        ResolverClient client = did -> did.equals("did:null") ? null : new ResolverClient.Result("doc", "application/json", false);
+
+        Map<String, ResolverClient.Result> results = client.discoverAll(List.of("did:1", "did:null"));
+
+        assertFalse(results.get("did:1").isErr());
+        assertTrue(results.get("did:null").isErr());
+        assertEquals("discover error: no result", results.get("did:null").content());
+    }
+
+    @Test
+    void whenInterrupted_thenSourceLookupsCancelled() {
+        List<CompletableFuture<ResolverClient.Result>> sources = new ArrayList<>();
+        ResolverClient client = new ResolverClient() {
+            @Override
+            public Result discover(String did) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<Result> discoverAsync(String did) {
+                CompletableFuture<Result> source = new CompletableFuture<>();
+                sources.add(source);
+                Thread.currentThread().interrupt();
+                return source;
+            }
+        };
+
+        Map<String, ResolverClient.Result> results = client.discoverAll(List.of("did:1", "did:2"), 2);
+
+        assertTrue(Thread.interrupted());
+        assertEquals(1, sources.size());
+        assertTrue(sources.get(0).isCancelled());
+        assertEquals("discover interrupted", results.get("did:1").content());
+        assertEquals("discover interrupted", results.get("did:2").content());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package smartrics.iotics.identity.resolver;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingResolverClientTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private ResolverClient delegate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        delegate = Mockito.mock(ResolverClient.class);
+        when(delegate.discover(anyString())).thenAnswer(i -> new ResolverClient.Result("doc of " + i.getArgument(0), "application/json", false));
+    }
+
+    @Test
+    void whenDiscoveringSameDidTwice_thenDelegatesOnce() throws IOException {
+        CachingResolverClient client = aClient().build();
+
+        ResolverClient.Result first = client.discover("did:iotics:1");
+        ResolverClient.Result second = client.discover("did:iotics:1");
+
+        assertSame(first, second);
+        verify(delegate, times(1)).discover("did:iotics:1");
+        CachingResolverClient.Stats stats = client.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void whenTtlElapsed_thenDelegatesAgain() throws IOException {
+        CachingResolverClient client = aClient().withTtl(Duration.ofSeconds(10)).build();
+
+        client.discover("did:iotics:1");
+        nanos.addAndGet(Duration.ofSeconds(11).toNanos());
+        client.discover("did:iotics:1");
+
+        verify(delegate, times(2)).discover("did:iotics:1");
+    }
+
+    @Test
+    void whenResultIsError_thenNotCached() throws IOException {
+        when(delegate.discover("did:iotics:missing")).thenReturn(new ResolverClient.Result("DID not found", "application/text", true));
+        CachingResolverClient client = aClient().build();
+
+        client.discover("did:iotics:missing");
+        client.discover("did:iotics:missing");
+
+        verify(delegate, times(2)).discover("did:iotics:missing");
+    }
+
+    @Test
+    void whenMaximumEntriesExceeded_thenEvicts() throws IOException {
+        CachingResolverClient client = aClient().withMaximumEntries(2).build();
+
+        client.discover("did:iotics:1");
+        client.discover("did:iotics:2");
+        client.discover("did:iotics:3");
+
+        assertEquals(2, client.stats().size());
+        assertEquals(1, client.stats().evictions());
+    }
+
+    @Test
+    void whenMaximumWeightExceeded_thenEvicts() throws IOException {
+        // each entry weighs 15 chars of DID plus 22 of document, ~27 entries fit
+        CachingResolverClient client = aClient().withMaximumWeight(1000).build();
+
+        for (int i = 100; i < 200; i++) {
+            client.discover("did:iotics:" + i);
+        }
+
+        assertTrue(client.stats().size() < 30);
+        assertEquals(100, client.stats().size() + client.stats().evictions());
+    }
+
+    @Test
+    void whenInvalidated_thenDelegatesAgain() throws IOException {
+        CachingResolverClient client = aClient().build();
+
+        client.discover("did:iotics:1");
+        client.invalidate("did:iotics:1");
+        client.discover("did:iotics:1");
+
+        verify(delegate, times(2)).discover("did:iotics:1");
+    }
+
+    @Test
+    void whenDelegateThrows_thenPropagates() throws IOException {
+        when(delegate.discover("did:iotics:err")).thenThrow(new IOException("Network error"));
+        CachingResolverClient client = aClient().build();
+
+        assertThrows(IOException.class, () -> client.discover("did:iotics:err"));
+    }
+
+    private CachingResolverClient.Builder aClient() {
+        return CachingResolverClient.Builder.aCachingResolverClient()
+                .withDelegate(delegate)
+                .withTicker(ticker);
+    }
+}
@@ -0,0 +1,151 @@
+package smartrics.iotics.identity.resolver;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CoalescingResolverClientTest {
+
+    private static final int CALLERS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final ResolverClient delegate = Mockito.mock(ResolverClient.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void whenConcurrentLookupsOfSameDid_thenDelegatesOnceAndSharesResult() throws Exception {
+        ResolverClient.Result doc = new ResolverClient.Result("doc", "application/json", false);
+        when(delegate.discover(anyString())).thenAnswer(i -> {
+            release.await();
+            return doc;
+        });
+        CoalescingResolverClient client = new CoalescingResolverClient(delegate);
+
+        List<Future<ResolverClient.Result>> results = startCallers(client, "did:iotics:1");
+        waitForCoalesced(client, CALLERS - 1);
+        release.countDown();
+
+        for (Future<ResolverClient.Result> r : results) {
+            assertSame(doc, r.get(5, TimeUnit.SECONDS));
+        }
+        verify(delegate, times(1)).discover("did:iotics:1");
+        assertEquals(0, client.stats().inFlight());
+    }
+
+    @Test
+    void whenLookupFails_thenEveryWaiterGetsTheFailure() throws Exception {
+        when(delegate.discover(anyString())).thenAnswer(i -> {
+            release.await();
+            throw new IOException("Network error");
+        });
+        CoalescingResolverClient client = new CoalescingResolverClient(delegate);
+
+        List<Future<ResolverClient.Result>> results = startCallers(client, "did:iotics:1");
+        waitForCoalesced(client, CALLERS - 1);
+        release.countDown();
+
+        for (Future<ResolverClient.Result> r : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> r.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException);
+            assertEquals("Network error", e.getCause().getMessage());
+        }
+        verify(delegate, times(1)).discover("did:iotics:1");
+    }
+
+    @Test
+    void whenWaiterTimesOut_thenThrowsInterruptedIOException() throws Exception {
+        when(delegate.discover(anyString())).thenAnswer(i -> {
+            release.await();
+            return new ResolverClient.Result("doc", "application/json", false);
+        });
+        CoalescingResolverClient client = new CoalescingResolverClient(delegate, Duration.ofMillis(50));
+
+        executor.submit(() -> client.discover("did:iotics:1"));
+        while (client.stats().inFlight() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertThrows(InterruptedIOException.class, () -> client.discover("did:iotics:1"));
+    }
+
+    @Test
+    void whenLookupCompleted_thenNextLookupDelegatesAgain() throws Exception {
+        when(delegate.discover(anyString())).thenReturn(new ResolverClient.Result("doc", "application/json", false));
+        CoalescingResolverClient client = new CoalescingResolverClient(delegate);
+
+        client.discover("did:iotics:1");
+        client.discover("did:iotics:1");
+
+        verify(delegate, times(2)).discover("did:iotics:1");
+    }
+
+    @Test
+    void whenDidNullOrBlank_thenDelegateRejectsIt() throws Exception {
+        ResolverClient http = new HttpResolverClient(new URL("http://localhost:9044"));
+        CoalescingResolverClient client = new CoalescingResolverClient(http);
+
+        assertThrows(IllegalArgumentException.class, () -> client.discover(null));
+        assertThrows(IllegalArgumentException.class, () -> client.discover(" "));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.discoverAsync(null).get());
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        assertEquals(0, client.stats().inFlight());
+    }
+
+    @Test
+    void whenConcurrentAsyncLookupsOfSameDid_thenDelegatesOnce() throws Exception {
+        CompletableFuture<ResolverClient.Result> lookup = new CompletableFuture<>();
+        when(delegate.discoverAsync(anyString())).thenReturn(lookup);
+        CoalescingResolverClient client = new CoalescingResolverClient(delegate);
+
+        CompletableFuture<ResolverClient.Result> first = client.discoverAsync("did:iotics:1");
+        CompletableFuture<ResolverClient.Result> second = client.discoverAsync("did:iotics:1");
+        second.cancel(true);
+        ResolverClient.Result doc = new ResolverClient.Result("doc", "application/json", false);
+        lookup.complete(doc);
+
+        assertSame(doc, first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.isCancelled());
+        verify(delegate, times(1)).discoverAsync("did:iotics:1");
+        assertEquals(0, client.stats().inFlight());
+    }
+
+    private List<Future<ResolverClient.Result>> startCallers(ResolverClient client, String did) {
+        List<Future<ResolverClient.Result>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> client.discover(did)));
+        }
+        return results;
+    }
+
+    private static void waitForCoalesced(CoalescingResolverClient client, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.stats().coalesced() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, client.stats().coalesced());
+    }
+}
@@ -9,7 +9,11 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -195,4 +199,115 @@ class HttpResolverClientTest {
         Mockito.verify(mockedClient).newCall(any(Request.class));
     }
 
+    @Test
+    void discoverAsyncSuccess() throws Exception {
+        String jwtPayload = Base64.getEncoder().encodeToString("{\"key\":\"value\"}".getBytes());
+        Response successResponse = new Response.Builder()
+                .request(new Request.Builder().url(baseUrl).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create("{ \"token\": \"unused." + jwtPayload + ".unused\" }", MediaType.parse("application/json")))
+                .build();
+        Call call = Mockito.mock(Call.class);
+        Mockito.doAnswer(i -> {
+            i.<Callback>getArgument(0).onResponse(call, successResponse);
+            return null;
+        }).when(call).enqueue(any(Callback.class));
+        Mockito.when(mockedClient.newCall(any(Request.class))).thenReturn(call);
+
+        ResolverClient.Result result = resolverClient.discoverAsync("validDID").get(5, TimeUnit.SECONDS);
+
+        assertEquals("{\"key\":\"value\"}", result.content());
+        assertFalse(result.isErr());
+        Mockito.verify(call, Mockito.never()).execute();
+    }
+
+    @Test
+    void discoverAsyncNotFound() throws Exception {
+        Response notFoundResponse = new Response.Builder()
+                .request(new Request.Builder().url(baseUrl).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(404)
+                .message("Not Found")
+                .build();
+        Call call = Mockito.mock(Call.class);
+        Mockito.doAnswer(i -> {
+            i.<Callback>getArgument(0).onResponse(call, notFoundResponse);
+            return null;
+        }).when(call).enqueue(any(Callback.class));
+        Mockito.when(mockedClient.newCall(any(Request.class))).thenReturn(call);
+
+        ResolverClient.Result result = resolverClient.discoverAsync("nonexistentDID").get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isErr());
+        assertEquals("DID not found", result.content());
+    }
+
+    @Test
+    void discoverAsyncFailure() {
+        Call call = Mockito.mock(Call.class);
+        Mockito.doAnswer(i -> {
+            i.<Callback>getArgument(0).onFailure(call, new IOException("Network error"));
+            return null;
+        }).when(call).enqueue(any(Callback.class));
+        Mockito.when(mockedClient.newCall(any(Request.class))).thenReturn(call);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> resolverClient.discoverAsync("validDIDWithIOException").get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    void discoverAsyncWithEmptyDID() {
+        assertTrue(resolverClient.discoverAsync("").isCompletedExceptionally());
+    }
+
+    @Test
+    void discoverAsyncCancelledCancelsCall() {
+        Call call = Mockito.mock(Call.class);
+        Mockito.when(mockedClient.newCall(any(Request.class))).thenReturn(call);
+
+        CompletableFuture<ResolverClient.Result> future = resolverClient.discoverAsync("validDID");
+        future.cancel(true);
+
+        Mockito.verify(call).cancel();
+    }
+
+    @Test
+    void poolStatsReflectClientConfiguration() {
+        OkHttpClient client = HttpResolverClient.newHttpClient(10, 5, 2, Duration.ofSeconds(30));
+        HttpResolverClient c = new HttpResolverClient(baseUrl, client);
+
+        HttpResolverClient.PoolStats stats = c.poolStats();
+
+        assertEquals(10, stats.maxRequests());
+        assertEquals(5, stats.maxRequestsPerHost());
+        assertEquals(0, stats.connections());
+        assertEquals(0, stats.runningCalls());
+    }
+
+    @Test
+    void discoverIntoSinkPassesDocumentWithoutContent() throws IOException {
+        String jwtPayload = Base64.getUrlEncoder().withoutPadding().encodeToString("{\"key\":\"value\"}".getBytes());
+        Response successResponse = new Response.Builder()
+                .request(new Request.Builder().url(baseUrl).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create("{\"token\":\"unused." + jwtPayload + ".unused\"}", MediaType.parse("application/json")))
+                .build();
+        Call call = Mockito.mock(Call.class);
+        Mockito.when(call.execute()).thenReturn(successResponse);
+        Mockito.when(mockedClient.newCall(any(Request.class))).thenReturn(call);
+        StringBuilder received = new StringBuilder();
+
+        ResolverClient.Result result = resolverClient.discover("validDID",
+                doc -> received.append(StandardCharsets.UTF_8.decode(doc)));
+
+        assertFalse(result.isErr());
+        assertEquals("", result.content());
+        assertEquals("{\"key\":\"value\"}", received.toString());
+    }
+
 }
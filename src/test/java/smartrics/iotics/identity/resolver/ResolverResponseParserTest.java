@@ -0,0 +1,61 @@
+package smartrics.iotics.identity.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolverResponseParserTest {
+
+    // encodes to base64 with '-' and '_' in the url alphabet, and with padding in the standard one
+    private static final String DOC = "{\"doc\":\"??>>\"}";
+
+    @Test
+    void parsesBase64UrlPayload() throws IOException {
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(DOC.getBytes(StandardCharsets.UTF_8));
+        assertTrue(payload.contains("_") || payload.contains("-"));
+
+        assertEquals(DOC, asString(ResolverResponseParser.parse(new StringReader("{\"token\":\"h." + payload + ".s\"}"))));
+    }
+
+    @Test
+    void parsesStandardBase64PayloadWithPadding() throws IOException {
+        String payload = Base64.getEncoder().encodeToString(DOC.getBytes(StandardCharsets.UTF_8));
+        assertTrue(payload.endsWith("="));
+
+        assertEquals(DOC, asString(ResolverResponseParser.parse(new StringReader("{\"token\":\"h." + payload + ".s\"}"))));
+    }
+
+    @Test
+    void findsTokenAmongOtherFields() throws IOException {
+        String payload = Base64.getUrlEncoder().encodeToString("{}".getBytes(StandardCharsets.UTF_8));
+        String response = "{\"other\":{\"token\":\"nested\"},\"list\":[1,2],\"token\":\"h." + payload + ".s\"}";
+
+        assertEquals("{}", asString(ResolverResponseParser.parse(new StringReader(response))));
+    }
+
+    @Test
+    void failsWithoutToken() {
+        assertThrows(IllegalArgumentException.class, () -> ResolverResponseParser.parse(new StringReader("{\"foo\":\"bar\"}")));
+    }
+
+    @Test
+    void failsWithMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> ResolverResponseParser.parse(new StringReader("{\"token\":\"nodots\"}")));
+        assertThrows(IllegalArgumentException.class, () -> ResolverResponseParser.parse(new StringReader("{\"token\":\"not.a.valid.jwt\"}")));
+    }
+
+    @Test
+    void failsWithNonJsonResponse() {
+        assertThrows(IOException.class, () -> ResolverResponseParser.parse(new StringReader("")));
+    }
+
+    private static String asString(ByteBuffer b) {
+        return StandardCharsets.UTF_8.decode(b).toString();
+    }
+}